@@ -0,0 +1,279 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Edge-preserving smoothing of 8-bit grayscale data with the bilateral grid (Paris and Durand):
+ * every pixel is splatted into a coarse 3-D grid over (x, y, intensity), the grid is blurred
+ * through Convolution, and the result is sliced back out with trilinear interpolation. Memory
+ * and blur cost depend on the grid size, not on the image.
+ *
+ * The parameters follow OpenCV's bilateralFilter(src, diameter, sigmaColor, sigmaSpace), and the
+ * grid reproduces that filter rather than an idealized one: its spatial kernel samples the same
+ * Gaussian truncated to the circular window (with sigmaSpace much larger than the window, as in
+ * test.py, that is a near-flat disk), pixels are splatted linearly along intensity, and pixels
+ * within the window radius of the border are splatted again at their reflect-101 positions.
+ * The splat runs in parallel row bands, each into its own partial grid that is then merged.
+ * Small windows, where the grid would be about as large as the image, fall back to the exact
+ * filter. applyExact is the brute-force filter with the same parameters, kept for validation
+ * (BilateralFilterCheck bounds the difference).
+ */
+public class BilateralFilter {
+    // Grid cells per window radius, and range cells per sigmaColor
+    private static final int CELLS_PER_RADIUS = 6;
+    private static final int CELLS_PER_SIGMA_COLOR = 4;
+
+    public static BufferedImage apply(BufferedImage grayscaleImage, int diameter, double sigmaColor, double sigmaSpace) {
+        return filterImage(grayscaleImage, diameter, sigmaColor, sigmaSpace, false);
+    }
+
+    public static BufferedImage applyExact(BufferedImage grayscaleImage, int diameter, double sigmaColor, double sigmaSpace) {
+        return filterImage(grayscaleImage, diameter, sigmaColor, sigmaSpace, true);
+    }
+
+    private static BufferedImage filterImage(BufferedImage grayscaleImage, int diameter, double sigmaColor,
+                                             double sigmaSpace, boolean exact) {
+        if (grayscaleImage.getRaster().getNumBands() != 1
+                || grayscaleImage.getSampleModel().getSampleSize(0) != 8) {
+            throw new IllegalArgumentException("Image must be 8-bit grayscale");
+        }
+        int width = grayscaleImage.getWidth();
+        int height = grayscaleImage.getHeight();
+        int[] pixels = grayscaleImage.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int[] filtered = exact
+                ? applyExact(pixels, width, height, diameter, sigmaColor, sigmaSpace)
+                : apply(pixels, width, height, diameter, sigmaColor, sigmaSpace);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        result.getRaster().setSamples(0, 0, width, height, 0, filtered);
+        return result;
+    }
+
+    /**
+     * Bilateral grid approximation for an 8-bit plane
+     */
+    public static int[] apply(int[] pixels, int width, int height, int diameter, double sigmaColor, double sigmaSpace) {
+        if (sigmaColor <= 0 || sigmaSpace <= 0) {
+            throw new IllegalArgumentException("Sigmas must be positive");
+        }
+        int radius = windowRadius(diameter, sigmaSpace);
+        // Beyond 3 sigmas the spatial weights no longer matter
+        double reach = Math.min(radius, 3 * sigmaSpace);
+        double cellSize = Math.max(1.0, Math.min((double) radius / CELLS_PER_RADIUS, sigmaSpace / 2));
+        double rangeCell = Math.max(1.0, sigmaColor / CELLS_PER_SIGMA_COLOR);
+
+        // Spatial kernel in cells: OpenCV's weights, truncated to the circular window
+        int kernelRadius = (int) Math.floor(reach / cellSize);
+        double[][] spatialWeights = new double[2 * kernelRadius + 1][2 * kernelRadius + 1];
+        for (int dy = -kernelRadius; dy <= kernelRadius; dy++) {
+            for (int dx = -kernelRadius; dx <= kernelRadius; dx++) {
+                double distance = Math.sqrt(dx * dx + dy * dy) * cellSize;
+                if (distance <= radius) {
+                    spatialWeights[dy + kernelRadius][dx + kernelRadius] =
+                            Math.exp(-(distance * distance) / (2 * sigmaSpace * sigmaSpace));
+                }
+            }
+        }
+        int rangeCells = (int) Math.ceil(255 / rangeCell) + 1;
+        int rangeRadius = Math.min(rangeCells - 1, (int) Math.ceil(3 * sigmaColor / rangeCell));
+        double[] rangeWeights = new double[2 * rangeRadius + 1];
+        for (int i = -rangeRadius; i <= rangeRadius; i++) {
+            double difference = i * rangeCell;
+            rangeWeights[i + rangeRadius] = Math.exp(-(difference * difference) / (2 * sigmaColor * sigmaColor));
+        }
+
+        // Grid coordinates cover the image plus its mirrored margin (and one more cell for
+        // interpolation); the blur treats everything outside the grid as empty
+        int gridWidth = (int) Math.ceil((width - 1 + 2 * radius) / cellSize) + 2;
+        int gridHeight = (int) Math.ceil((height - 1 + 2 * radius) / cellSize) + 2;
+        int gridDepth = rangeCells + 1;
+        int planeSize = gridWidth * gridHeight;
+
+        // Small windows leave the grid about as large as the image; brute force is cheaper there
+        int spatialTaps = (2 * kernelRadius + 1) * (2 * kernelRadius + 1);
+        double gridCost = 2.0 * planeSize * gridDepth * (spatialTaps + rangeWeights.length)
+                + (double) width * height * (2 * radius + 1) * 2.0 / cellSize;
+        if (gridCost >= (double) width * height * windowTaps(radius)) {
+            return applyExact(pixels, width, height, diameter, sigmaColor, sigmaSpace);
+        }
+
+        // Splat: each pixel adds (value, 1) to its nearest cell in x and y, shared linearly
+        // between the two nearest intensity cells. Row bands splat in parallel into partial
+        // grids spanning only their own grid rows; the partials are then added in band order,
+        // so the sums do not depend on scheduling
+        int extendedHeight = height + 2 * radius;
+        int bands = ParallelBands.bandCount(extendedHeight, 16);
+        int[] firstRows = new int[bands];
+        float[][] bandValues = new float[bands][];
+        float[][] bandWeights = new float[bands][];
+        ParallelBands.forEach(bands, 1, (firstBand, lastBand) -> {
+            for (int band = firstBand; band < lastBand; band++) {
+                int start = ParallelBands.bandStart(band, bands, extendedHeight);
+                int end = ParallelBands.bandStart(band + 1, bands, extendedHeight);
+                int firstRow = (int) Math.round(start / cellSize);
+                int bandPlane = ((int) Math.round((end - 1) / cellSize) - firstRow + 1) * gridWidth;
+                float[] partialValues = new float[bandPlane * gridDepth];
+                float[] partialWeights = new float[bandPlane * gridDepth];
+                for (int ey = start; ey < end; ey++) {
+                    int sy = Convolution.borderIndex(ey - radius, height, Convolution.BorderMode.MIRROR);
+                    int gy = (int) Math.round(ey / cellSize) - firstRow;
+                    for (int ex = 0; ex < width + 2 * radius; ex++) {
+                        int sx = Convolution.borderIndex(ex - radius, width, Convolution.BorderMode.MIRROR);
+                        int gray = pixels[sy * width + sx];
+                        int gx = (int) Math.round(ex / cellSize);
+                        double gz = gray / rangeCell;
+                        int z0 = (int) gz;
+                        float upper = (float) (gz - z0);
+                        int cell = z0 * bandPlane + gy * gridWidth + gx;
+                        partialValues[cell] += gray * (1 - upper);
+                        partialWeights[cell] += 1 - upper;
+                        partialValues[cell + bandPlane] += gray * upper;
+                        partialWeights[cell + bandPlane] += upper;
+                    }
+                }
+                firstRows[band] = firstRow;
+                bandValues[band] = partialValues;
+                bandWeights[band] = partialWeights;
+            }
+        });
+        float[] values = new float[planeSize * gridDepth];
+        float[] weights = new float[planeSize * gridDepth];
+        for (int band = 0; band < bands; band++) {
+            int bandPlane = bandValues[band].length / gridDepth;
+            for (int z = 0; z < gridDepth; z++) {
+                int from = z * bandPlane;
+                int to = z * planeSize + firstRows[band] * gridWidth;
+                for (int i = 0; i < bandPlane; i++) {
+                    values[to + i] += bandValues[band][from + i];
+                    weights[to + i] += bandWeights[band][from + i];
+                }
+            }
+        }
+
+        // Blur: x and y per intensity slice, then along intensity, treating the grid as a
+        // (gridWidth * gridHeight) x gridDepth plane
+        Convolution.Kernel spatial = new Convolution.Kernel(spatialWeights);
+        Convolution.Kernel range = Convolution.Kernel.separable(new double[]{1}, rangeWeights);
+        float[] blurredValues = blurGrid(values, gridWidth, gridHeight, gridDepth, spatial, range);
+        float[] blurredWeights = blurGrid(weights, gridWidth, gridHeight, gridDepth, spatial, range);
+
+        // Slice: trilinear interpolation at every pixel's grid position
+        int[] result = new int[width * height];
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                double gy = (y + radius) / cellSize;
+                for (int x = 0; x < width; x++) {
+                    int gray = pixels[y * width + x];
+                    double gx = (x + radius) / cellSize;
+                    double gz = gray / rangeCell;
+                    double weight = trilinear(blurredWeights, gridWidth, planeSize, gx, gy, gz);
+                    double value = trilinear(blurredValues, gridWidth, planeSize, gx, gy, gz);
+                    int filtered = weight > 0 ? (int) Math.round(value / weight) : gray;
+                    result[y * width + x] = Math.max(0, Math.min(255, filtered));
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Brute-force bilateral filter over a circular window of the given diameter
+     * (reflect-101 border, like OpenCV); O(diameter^2) per pixel
+     */
+    public static int[] applyExact(int[] pixels, int width, int height, int diameter, double sigmaColor, double sigmaSpace) {
+        if (sigmaColor <= 0 || sigmaSpace <= 0) {
+            throw new IllegalArgumentException("Sigmas must be positive");
+        }
+        int radius = windowRadius(diameter, sigmaSpace);
+        double[] colorWeight = new double[256];
+        for (int i = 0; i < 256; i++) {
+            colorWeight[i] = Math.exp(-(i * i) / (2 * sigmaColor * sigmaColor));
+        }
+
+        // Window offsets and spatial weights (points inside the circle only)
+        int taps = 0;
+        int[] offsetX = new int[(2 * radius + 1) * (2 * radius + 1)];
+        int[] offsetY = new int[offsetX.length];
+        double[] spaceWeight = new double[offsetX.length];
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                if (distance <= radius) {
+                    offsetX[taps] = dx;
+                    offsetY[taps] = dy;
+                    spaceWeight[taps] = Math.exp(-(distance * distance) / (2 * sigmaSpace * sigmaSpace));
+                    taps++;
+                }
+            }
+        }
+
+        int tapCount = taps;
+        int[] result = new int[width * height];
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                for (int x = 0; x < width; x++) {
+                    int center = pixels[y * width + x];
+                    double sum = 0;
+                    double norm = 0;
+                    for (int t = 0; t < tapCount; t++) {
+                        int sx = Convolution.borderIndex(x + offsetX[t], width, Convolution.BorderMode.MIRROR);
+                        int sy = Convolution.borderIndex(y + offsetY[t], height, Convolution.BorderMode.MIRROR);
+                        int gray = pixels[sy * width + sx];
+                        double weight = spaceWeight[t] * colorWeight[Math.abs(gray - center)];
+                        sum += weight * gray;
+                        norm += weight;
+                    }
+                    result[y * width + x] = Math.max(0, Math.min(255, (int) Math.round(sum / norm)));
+                }
+            }
+        });
+        return result;
+    }
+
+    // Window radius as OpenCV derives it
+    private static int windowRadius(int diameter, double sigmaSpace) {
+        return diameter > 0 ? diameter / 2 : (int) Math.round(sigmaSpace * 1.5);
+    }
+
+    // Points of the circular window
+    private static int windowTaps(int radius) {
+        int taps = 0;
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                if (dx * dx + dy * dy <= radius * radius) {
+                    taps++;
+                }
+            }
+        }
+        return taps;
+    }
+
+    private static float[] blurGrid(float[] grid, int gridWidth, int gridHeight, int gridDepth,
+                                    Convolution.Kernel spatial, Convolution.Kernel range) {
+        int planeSize = gridWidth * gridHeight;
+        float[] blurred = new float[grid.length];
+        float[] slice = new float[planeSize];
+        for (int z = 0; z < gridDepth; z++) {
+            System.arraycopy(grid, z * planeSize, slice, 0, planeSize);
+            float[] filtered = Convolution.apply(slice, gridWidth, gridHeight, spatial, Convolution.BorderMode.ZERO);
+            System.arraycopy(filtered, 0, blurred, z * planeSize, planeSize);
+        }
+        return Convolution.apply(blurred, planeSize, gridDepth, range, Convolution.BorderMode.ZERO);
+    }
+
+    private static double trilinear(float[] grid, int gridWidth, int planeSize, double gx, double gy, double gz) {
+        int x0 = (int) gx;
+        int y0 = (int) gy;
+        int z0 = (int) gz;
+        double fx = gx - x0;
+        double fy = gy - y0;
+        double fz = gz - z0;
+        int base = z0 * planeSize + y0 * gridWidth + x0;
+
+        double c00 = grid[base] * (1 - fx) + grid[base + 1] * fx;
+        double c10 = grid[base + gridWidth] * (1 - fx) + grid[base + gridWidth + 1] * fx;
+        double c01 = grid[base + planeSize] * (1 - fx) + grid[base + planeSize + 1] * fx;
+        double c11 = grid[base + planeSize + gridWidth] * (1 - fx) + grid[base + planeSize + gridWidth + 1] * fx;
+        double c0 = c00 * (1 - fy) + c10 * fy;
+        double c1 = c01 * (1 - fy) + c11 * fy;
+        return c0 * (1 - fz) + c1 * fz;
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.Random;
+
+/**
+ * Reports and bounds the difference between the bilateral grid (BilateralFilter.apply) and the
+ * brute-force filter (applyExact) with test.py's parameters (31, 200, 200), on a synthetic
+ * chest-like image (dark background, bright body, dark lungs, ribs and noise) and on noise,
+ * then checks that small windows take the exact path. Bounds are in gray levels over the whole
+ * image, borders included; uniform noise is the worst case for the grid and gets looser ones.
+ * The common pool is forced to 4 workers so the splat really runs in several bands.
+ * Run with: java BilateralFilterCheck, or java Checks for every check.
+ */
+public class BilateralFilterCheck {
+    public static void main(String[] args) {
+        Checks.main("bilateral filter", BilateralFilterCheck::run);
+    }
+
+    static void run(Checks checks) {
+        Random random = new Random(45);
+        int width = 480;
+        int height = 400;
+        int[] chest = new int[width * height];
+        int[] noise = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double value = 20;
+                if (inEllipse(x, y, 240, 210, 200, 185)) {
+                    value = 170 + 30.0 * y / height;
+                    if (inEllipse(x, y, 160, 200, 65, 120) || inEllipse(x, y, 320, 200, 65, 120)) {
+                        value = 70 + 25 * Math.max(0, Math.sin(y / 9.0));
+                    }
+                }
+                chest[y * width + x] = clamp(value + random.nextGaussian() * 8);
+                noise[y * width + x] = random.nextInt(256);
+            }
+        }
+
+        // Bounds: mean error, max error, fraction of pixels off by more than one level
+        compare(checks, "chest 31/200/200", chest, width, height, 31, 200, 200, 0.25, 3, 0.01);
+        compare(checks, "noise 31/200/200", noise, width, height, 31, 200, 200, 0.75, 4, 0.08);
+        // Windows this small are filtered exactly
+        compare(checks, "chest 9/75/75", chest, width, height, 9, 75, 75, 0, 0, 0);
+    }
+
+    private static void compare(Checks checks, String name, int[] pixels, int width, int height,
+                                int diameter, double sigmaColor, double sigmaSpace, double maxMean,
+                                int maxError, double maxFraction) {
+        int[] grid = BilateralFilter.apply(pixels, width, height, diameter, sigmaColor, sigmaSpace);
+        int[] exact = BilateralFilter.applyExact(pixels, width, height, diameter, sigmaColor, sigmaSpace);
+        long sum = 0;
+        int max = 0;
+        int overOne = 0;
+        for (int i = 0; i < grid.length; i++) {
+            int error = Math.abs(grid[i] - exact[i]);
+            sum += error;
+            max = Math.max(max, error);
+            if (error > 1) {
+                overOne++;
+            }
+        }
+        double mean = (double) sum / grid.length;
+        double fraction = (double) overOne / grid.length;
+        System.out.printf("%s: mean %.3f, max %d, %.2f%% of pixels off by more than 1%n",
+                name, mean, max, 100 * fraction);
+        checks.expect(mean <= maxMean, name + " mean error " + mean);
+        checks.expect(max <= maxError, name + " max error " + max);
+        checks.expect(fraction <= maxFraction, name + " fraction over 1: " + fraction);
+    }
+
+    private static boolean inEllipse(int x, int y, double cx, double cy, double rx, double ry) {
+        double dx = (x - cx) / rx;
+        double dy = (y - cy) / ry;
+        return dx * dx + dy * dy <= 1;
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}
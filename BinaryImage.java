@@ -0,0 +1,364 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Bit-packed binary mask: 64 pixels per long, rows padded to whole words (pixel x of a row is
+ * bit x % 64 of word x / 64). Logic operations, shifts and rectangular erosion/dilation work a
+ * word at a time, and area statistics use popcount, so masks take 1/8 of the memory of a
+ * TYPE_BYTE_GRAY image.
+ */
+public class BinaryImage {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+    // Valid bits of the last word of each row
+    private final long tailMask;
+
+    public BinaryImage(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+        this.tailMask = (width & 63) == 0 ? -1L : (1L << (width & 63)) - 1;
+    }
+
+    /**
+     * Mask of the non-zero pixels of band 0
+     */
+    public static BinaryImage fromImage(BufferedImage image) {
+        return threshold(image, 0);
+    }
+
+    /**
+     * Mask of the pixels of band 0 greater than threshold (like OpenCV's THRESH_BINARY)
+     */
+    public static BinaryImage threshold(BufferedImage image, int threshold) {
+        BinaryImage mask = new BinaryImage(image.getWidth(), image.getHeight());
+        int width = mask.width;
+        ParallelBands.forEach(mask.height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                image.getRaster().getSamples(0, y, width, 1, 0, row);
+                int offset = y * mask.wordsPerRow;
+                for (int x = 0; x < width; x++) {
+                    if (row[x] > threshold) {
+                        mask.bits[offset + (x >>> 6)] |= 1L << x;
+                    }
+                }
+            }
+        });
+        return mask;
+    }
+
+    /**
+     * TYPE_BYTE_GRAY image with 255 for set pixels and 0 elsewhere
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                int offset = y * wordsPerRow;
+                for (int x = 0; x < width; x++) {
+                    row[x] = (bits[offset + (x >>> 6)] >>> x & 1L) != 0 ? 255 : 0;
+                }
+                image.getRaster().setSamples(0, y, width, 1, 0, row);
+            }
+        });
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean get(int x, int y) {
+        return (bits[y * wordsPerRow + (x >>> 6)] >>> x & 1L) != 0;
+    }
+
+    public void set(int x, int y, boolean value) {
+        int index = y * wordsPerRow + (x >>> 6);
+        if (value) {
+            bits[index] |= 1L << x;
+        } else {
+            bits[index] &= ~(1L << x);
+        }
+    }
+
+    public BinaryImage copy() {
+        BinaryImage copy = new BinaryImage(width, height);
+        System.arraycopy(bits, 0, copy.bits, 0, bits.length);
+        return copy;
+    }
+
+    public BinaryImage and(BinaryImage other) {
+        checkSize(other);
+        BinaryImage result = new BinaryImage(width, height);
+        for (int i = 0; i < bits.length; i++) {
+            result.bits[i] = bits[i] & other.bits[i];
+        }
+        return result;
+    }
+
+    public BinaryImage or(BinaryImage other) {
+        checkSize(other);
+        BinaryImage result = new BinaryImage(width, height);
+        for (int i = 0; i < bits.length; i++) {
+            result.bits[i] = bits[i] | other.bits[i];
+        }
+        return result;
+    }
+
+    public BinaryImage xor(BinaryImage other) {
+        checkSize(other);
+        BinaryImage result = new BinaryImage(width, height);
+        for (int i = 0; i < bits.length; i++) {
+            result.bits[i] = bits[i] ^ other.bits[i];
+        }
+        return result;
+    }
+
+    /**
+     * Pixels set here but not in other
+     */
+    public BinaryImage andNot(BinaryImage other) {
+        checkSize(other);
+        BinaryImage result = new BinaryImage(width, height);
+        for (int i = 0; i < bits.length; i++) {
+            result.bits[i] = bits[i] & ~other.bits[i];
+        }
+        return result;
+    }
+
+    public BinaryImage not() {
+        BinaryImage result = new BinaryImage(width, height);
+        for (int i = 0; i < bits.length; i++) {
+            result.bits[i] = ~bits[i];
+        }
+        result.clearTails();
+        return result;
+    }
+
+    /**
+     * Image moved by (dx, dy): result(x, y) = this(x - dx, y - dy), with empty pixels shifted in
+     */
+    public BinaryImage shift(int dx, int dy) {
+        BinaryImage result = new BinaryImage(width, height);
+        long[] row = new long[wordsPerRow];
+        for (int y = 0; y < height; y++) {
+            int sourceY = y - dy;
+            if (sourceY < 0 || sourceY >= height) {
+                continue;
+            }
+            shiftRow(bits, sourceY * wordsPerRow, -dx, false, row);
+            System.arraycopy(row, 0, result.bits, y * wordsPerRow, wordsPerRow);
+        }
+        return result;
+    }
+
+    /**
+     * Dilation by a width x height rectangle anchored at its center
+     */
+    public BinaryImage dilate(int rectWidth, int rectHeight) {
+        return morph(rectWidth, rectHeight, true);
+    }
+
+    /**
+     * Erosion by a width x height rectangle anchored at its center; pixels outside the image
+     * count as set, so the border does not erode the mask (as in Morphology)
+     */
+    public BinaryImage erode(int rectWidth, int rectHeight) {
+        return morph(rectWidth, rectHeight, false);
+    }
+
+    public BinaryImage open(int rectWidth, int rectHeight) {
+        return erode(rectWidth, rectHeight).dilate(rectWidth, rectHeight);
+    }
+
+    public BinaryImage close(int rectWidth, int rectHeight) {
+        return dilate(rectWidth, rectHeight).erode(rectWidth, rectHeight);
+    }
+
+    /**
+     * Number of set pixels
+     */
+    public long area() {
+        long area = 0;
+        for (long word : bits) {
+            area += Long.bitCount(word);
+        }
+        return area;
+    }
+
+    public int rowArea(int y) {
+        int area = 0;
+        for (int i = y * wordsPerRow; i < (y + 1) * wordsPerRow; i++) {
+            area += Long.bitCount(bits[i]);
+        }
+        return area;
+    }
+
+    /**
+     * {minX, minY, maxX, maxY} of the set pixels (inclusive), or null for an empty mask
+     */
+    public int[] boundingBox() {
+        int minX = width;
+        int maxX = -1;
+        int minY = -1;
+        int maxY = -1;
+        for (int y = 0; y < height; y++) {
+            int offset = y * wordsPerRow;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = bits[offset + i];
+                if (word != 0) {
+                    minX = Math.min(minX, (i << 6) + Long.numberOfTrailingZeros(word));
+                    maxX = Math.max(maxX, (i << 6) + 63 - Long.numberOfLeadingZeros(word));
+                    if (minY < 0) {
+                        minY = y;
+                    }
+                    maxY = y;
+                }
+            }
+        }
+        return maxY < 0 ? null : new int[]{minX, minY, maxX, maxY};
+    }
+
+    /**
+     * {x, y} mean position of the set pixels, or null for an empty mask
+     */
+    public double[] centroid() {
+        long area = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int y = 0; y < height; y++) {
+            int offset = y * wordsPerRow;
+            long rowArea = 0;
+            for (int i = 0; i < wordsPerRow; i++) {
+                long word = bits[offset + i];
+                rowArea += Long.bitCount(word);
+                while (word != 0) {
+                    sumX += (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            area += rowArea;
+            sumY += (double) rowArea * y;
+        }
+        return area == 0 ? null : new double[]{sumX / area, sumY / area};
+    }
+
+    // Separable rectangle: OR (dilate) or AND (erode) over the window, horizontally then vertically
+    private BinaryImage morph(int rectWidth, int rectHeight, boolean dilate) {
+        if (rectWidth <= 0 || rectHeight <= 0) {
+            throw new IllegalArgumentException("Rectangle size must be positive");
+        }
+        BinaryImage horizontal = new BinaryImage(width, height);
+        int anchorX = rectWidth / 2;
+        ParallelBands.forEach(height, (start, end) -> {
+            long[] right = new long[wordsPerRow];
+            long[] left = new long[wordsPerRow];
+            long[] scratch = new long[wordsPerRow];
+            for (int y = start; y < end; y++) {
+                int offset = y * wordsPerRow;
+                // Window [x - a, x - a + length) = [x - a, x] combined with [x, x + length - a)
+                System.arraycopy(bits, offset, right, 0, wordsPerRow);
+                System.arraycopy(bits, offset, left, 0, wordsPerRow);
+                combineSpan(right, scratch, rectWidth - anchorX, 1, dilate);
+                combineSpan(left, scratch, anchorX + 1, -1, dilate);
+                for (int i = 0; i < wordsPerRow; i++) {
+                    horizontal.bits[offset + i] = dilate ? right[i] | left[i] : right[i] & left[i];
+                }
+            }
+        });
+
+        BinaryImage result = new BinaryImage(width, height);
+        int anchor = rectHeight / 2;
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                int offset = y * wordsPerRow;
+                for (int i = 0; i < wordsPerRow; i++) {
+                    result.bits[offset + i] = dilate ? 0L : -1L;
+                }
+                for (int k = -anchor; k < rectHeight - anchor; k++) {
+                    int sourceY = y + k;
+                    if (sourceY < 0 || sourceY >= height) {
+                        continue; // outside rows never win
+                    }
+                    int source = sourceY * wordsPerRow;
+                    for (int i = 0; i < wordsPerRow; i++) {
+                        result.bits[offset + i] = dilate
+                                ? result.bits[offset + i] | horizontal.bits[source + i]
+                                : result.bits[offset + i] & horizontal.bits[source + i];
+                    }
+                }
+            }
+        });
+        result.clearTails();
+        return result;
+    }
+
+    // Turns row bit x into the OR/AND of the length bits starting at x and going in the given
+    // direction (1 or -1), doubling the covered span each step
+    private void combineSpan(long[] row, long[] scratch, int length, int direction, boolean dilate) {
+        int span = 1;
+        while (span * 2 <= length) {
+            shiftRow(row, 0, direction * span, !dilate, scratch);
+            for (int i = 0; i < wordsPerRow; i++) {
+                row[i] = dilate ? row[i] | scratch[i] : row[i] & scratch[i];
+            }
+            span *= 2;
+        }
+        if (span < length) {
+            shiftRow(row, 0, direction * (length - span), !dilate, scratch);
+            for (int i = 0; i < wordsPerRow; i++) {
+                row[i] = dilate ? row[i] | scratch[i] : row[i] & scratch[i];
+            }
+        }
+    }
+
+    // target bit x = source bit (x + k) of the row at offset; bits outside the row read as fill
+    private void shiftRow(long[] source, int offset, int k, boolean fill, long[] target) {
+        int wordShift = k >> 6;
+        int bitShift = k & 63;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long low = word(source, offset, i + wordShift, fill);
+            if (bitShift == 0) {
+                target[i] = low;
+            } else {
+                long high = word(source, offset, i + wordShift + 1, fill);
+                target[i] = (low >>> bitShift) | (high << (64 - bitShift));
+            }
+        }
+        target[wordsPerRow - 1] &= tailMask;
+    }
+
+    private long word(long[] source, int offset, int i, boolean fill) {
+        if (i < 0 || i >= wordsPerRow) {
+            return fill ? -1L : 0L;
+        }
+        long word = source[offset + i];
+        if (fill && i == wordsPerRow - 1) {
+            word |= ~tailMask;
+        }
+        return word;
+    }
+
+    private void clearTails() {
+        for (int y = 0; y < height; y++) {
+            bits[y * wordsPerRow + wordsPerRow - 1] &= tailMask;
+        }
+    }
+
+    private void checkSize(BinaryImage other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Binary images must have the same size");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Shared shape of the *Check programs and a runner for all of them. A check is a body that
+ * reports through expect(); run as its own program (java ConvolutionCheck) or as part of
+ * java Checks, it prints one FAIL line per failed expectation and a summary line, and the
+ * program exits with status 1 when anything failed. The common pool is forced to 4 workers
+ * before any check runs so parallel bands really split on small machines.
+ */
+public class Checks {
+    private static final String POOL_PARALLELISM = "4";
+
+    /**
+     * Body of one check
+     */
+    public interface Body {
+        void run(Checks checks) throws Exception;
+    }
+
+    private int failures = 0;
+
+    private Checks() {
+    }
+
+    /**
+     * Counts a failure and prints the message when the condition does not hold
+     */
+    public void expect(boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAIL " + message);
+        }
+    }
+
+    /**
+     * Runs every check in one JVM and exits with status 1 if any of them failed
+     */
+    public static void main(String[] args) {
+        forcePoolParallelism();
+        String[] names = {"convolution", "Laplacian denoise", "Gaussian blur", "bilateral filter",
+                "morphology", "X-ray pipeline"};
+        Body[] bodies = {ConvolutionCheck::run, LaplacianDenoiseCheck::run, GaussianBlurCheck::run,
+                BilateralFilterCheck::run, MorphologyCheck::run, XrayPipelineCheck::run};
+        StringBuilder failed = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            System.out.println("== " + names[i]);
+            if (run(names[i], bodies[i]) > 0) {
+                failed.append(failed.length() == 0 ? "" : ", ").append(names[i]);
+            }
+        }
+        if (failed.length() > 0) {
+            System.out.println("FAILED: " + failed);
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * Entry point of a single check program
+     */
+    public static void main(String name, Body body) {
+        forcePoolParallelism();
+        if (run(name, body) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Runs a body and prints its summary; an exception counts as a failure. Returns the failures
+    private static int run(String name, Body body) {
+        Checks checks = new Checks();
+        try {
+            body.run(checks);
+        } catch (Exception e) {
+            checks.expect(false, name + " threw " + e);
+        }
+        if (checks.failures > 0) {
+            System.out.println(checks.failures + " " + name + " checks failed");
+        } else {
+            System.out.println("All " + name + " checks passed");
+        }
+        return checks.failures;
+    }
+
+    // Must happen before anything touches the common pool
+    private static void forcePoolParallelism() {
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", POOL_PARALLELISM);
+    }
+}
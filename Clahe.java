@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ * Contrast-limited adaptive histogram equalization (CLAHE) for 8-bit data, following OpenCV's
+ * createCLAHE: the image is split into a grid of tiles (padded by reflection when the size is
+ * not a multiple of the grid), every tile histogram is clipped at clipLimit * tileArea / 256
+ * with the excess spread over all bins, and each pixel blends the equalization tables of its
+ * four nearest tile centers bilinearly.
+ */
+public class Clahe {
+    private static final int BINS = 256;
+
+    /**
+     * Returns the CLAHE result for a plane of 8-bit values
+     */
+    public static int[] apply(int[] pixels, int width, int height, double clipLimit, int tilesX, int tilesY) {
+        if (tilesX <= 0 || tilesY <= 0) {
+            throw new IllegalArgumentException("Tile grid size must be positive");
+        }
+        int tileWidth = (width + tilesX - 1) / tilesX;
+        int tileHeight = (height + tilesY - 1) / tilesY;
+        int tileArea = tileWidth * tileHeight;
+        int clip = clipLimit > 0 ? Math.max(1, (int) (clipLimit * tileArea / BINS)) : 0;
+
+        // Step 1: clipped equalization table of every tile (parallel over tiles)
+        int[][] luts = new int[tilesX * tilesY][];
+        ParallelBands.forEach(luts.length, 1, (start, end) -> {
+            int[] histogram = new int[BINS];
+            for (int tile = start; tile < end; tile++) {
+                int x0 = (tile % tilesX) * tileWidth;
+                int y0 = (tile / tilesX) * tileHeight;
+                Arrays.fill(histogram, 0);
+                for (int y = y0; y < y0 + tileHeight; y++) {
+                    int row = reflect101(y, height) * width;
+                    for (int x = x0; x < x0 + tileWidth; x++) {
+                        histogram[pixels[row + reflect101(x, width)]]++;
+                    }
+                }
+                if (clip > 0) {
+                    clipHistogram(histogram, clip);
+                }
+                luts[tile] = cumulativeTable(histogram, tileArea);
+            }
+        });
+
+        // Step 2: bilinear blend of the four surrounding tile tables (parallel over rows)
+        int[] result = new int[width * height];
+        float invTileWidth = 1.0f / tileWidth;
+        float invTileHeight = 1.0f / tileHeight;
+        int[] tileLeft = new int[width];
+        int[] tileRight = new int[width];
+        float[] weightRight = new float[width];
+        for (int x = 0; x < width; x++) {
+            float txf = x * invTileWidth - 0.5f;
+            int tx1 = (int) Math.floor(txf);
+            weightRight[x] = txf - tx1;
+            tileLeft[x] = Math.max(tx1, 0);
+            tileRight[x] = Math.min(tx1 + 1, tilesX - 1);
+        }
+
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                float tyf = y * invTileHeight - 0.5f;
+                int ty1 = (int) Math.floor(tyf);
+                float ya = tyf - ty1;
+                float ya1 = 1.0f - ya;
+                int top = Math.max(ty1, 0) * tilesX;
+                int bottom = Math.min(ty1 + 1, tilesY - 1) * tilesX;
+
+                for (int x = 0; x < width; x++) {
+                    int gray = pixels[y * width + x];
+                    float xa = weightRight[x];
+                    float xa1 = 1.0f - xa;
+                    float value = (luts[top + tileLeft[x]][gray] * xa1 + luts[top + tileRight[x]][gray] * xa) * ya1
+                            + (luts[bottom + tileLeft[x]][gray] * xa1 + luts[bottom + tileRight[x]][gray] * xa) * ya;
+                    result[y * width + x] = Math.max(0, Math.min(255, Math.round(value)));
+                }
+            }
+        });
+        return result;
+    }
+
+    // Caps every bin at clip and spreads the excess evenly, the remainder one count at a time
+    private static void clipHistogram(int[] histogram, int clip) {
+        int excess = 0;
+        for (int i = 0; i < BINS; i++) {
+            if (histogram[i] > clip) {
+                excess += histogram[i] - clip;
+                histogram[i] = clip;
+            }
+        }
+
+        int batch = excess / BINS;
+        int residual = excess - batch * BINS;
+        for (int i = 0; i < BINS; i++) {
+            histogram[i] += batch;
+        }
+        if (residual > 0) {
+            int step = Math.max(BINS / residual, 1);
+            for (int i = 0; i < BINS && residual > 0; i += step, residual--) {
+                histogram[i]++;
+            }
+        }
+    }
+
+    private static int[] cumulativeTable(int[] histogram, int tileArea) {
+        float scale = 255.0f / tileArea;
+        int[] lut = new int[BINS];
+        int sum = 0;
+        for (int i = 0; i < BINS; i++) {
+            sum += histogram[i];
+            lut[i] = Math.max(0, Math.min(255, Math.round(sum * scale)));
+        }
+        return lut;
+    }
+
+    // Reflection without repeating the edge pixel, like ImageProcessing.getMirroredPixel
+    private static int reflect101(int i, int length) {
+        if (length == 1) {
+            return 0;
+        }
+        while (i < 0 || i >= length) {
+            i = i < 0 ? -i : 2 * length - 2 - i;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,307 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Connected-component labeling of binary masks with 4- or 8-connectivity. The first raster
+ * scan gives every foreground pixel a provisional label from its already visited neighbors,
+ * records label equivalences in a union-find array and accumulates area, bounding box and
+ * coordinate sums per provisional label. The equivalences are then resolved into consecutive
+ * labels (1..count, 0 is background), the statistics are merged, and a second scan rewrites
+ * the label array. All state lives in int/long arrays; nothing is allocated per pixel.
+ */
+public class ConnectedComponents {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int width;
+    private final int height;
+    private final int[] labels;
+    private final int count;
+    // Per-component statistics indexed by label (index 0 unused)
+    private final int[] area;
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final long[] sumX;
+    private final long[] sumY;
+
+    private ConnectedComponents(int width, int height, int[] labels, int count) {
+        this.width = width;
+        this.height = height;
+        this.labels = labels;
+        this.count = count;
+        this.area = new int[count + 1];
+        this.minX = new int[count + 1];
+        this.minY = new int[count + 1];
+        this.maxX = new int[count + 1];
+        this.maxY = new int[count + 1];
+        this.sumX = new long[count + 1];
+        this.sumY = new long[count + 1];
+    }
+
+    /**
+     * Components of the non-zero pixels of band 0
+     */
+    public static ConnectedComponents label(BufferedImage mask, int connectivity) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        int[] samples = mask.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        boolean[] foreground = new boolean[width * height];
+        for (int i = 0; i < samples.length; i++) {
+            foreground[i] = samples[i] != 0;
+        }
+        return label(foreground, width, height, connectivity);
+    }
+
+    public static ConnectedComponents label(BinaryImage mask, int connectivity) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        boolean[] foreground = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                foreground[y * width + x] = mask.get(x, y);
+            }
+        }
+        return label(foreground, width, height, connectivity);
+    }
+
+    /**
+     * Labels the foreground pixels of a row-major mask; connectivity is 4 or 8
+     */
+    public static ConnectedComponents label(boolean[] foreground, int width, int height, int connectivity) {
+        if (connectivity != 4 && connectivity != 8) {
+            throw new IllegalArgumentException("Connectivity must be 4 or 8");
+        }
+        if (foreground.length != width * height) {
+            throw new IllegalArgumentException("Mask size does not match width x height");
+        }
+        boolean diagonal = connectivity == 8;
+        int[] provisional = new int[width * height];
+        Provisional table = new Provisional();
+
+        // Pass 1: provisional labels, equivalences and statistics
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int index = row + x;
+                if (!foreground[index]) {
+                    continue;
+                }
+                int label = 0;
+                if (x > 0) {
+                    label = table.join(label, provisional[index - 1]);
+                }
+                if (y > 0) {
+                    label = table.join(label, provisional[index - width]);
+                    if (diagonal) {
+                        if (x > 0) {
+                            label = table.join(label, provisional[index - width - 1]);
+                        }
+                        if (x < width - 1) {
+                            label = table.join(label, provisional[index - width + 1]);
+                        }
+                    }
+                }
+                if (label == 0) {
+                    label = table.create(x, y);
+                }
+                provisional[index] = label;
+                table.add(label, x, y);
+            }
+        }
+
+        // Resolve: consecutive final labels, in order of first appearance
+        int[] finalLabel = new int[table.size + 1];
+        int count = 0;
+        for (int p = 1; p <= table.size; p++) {
+            int root = table.find(p);
+            if (root == p) {
+                finalLabel[p] = ++count;
+            }
+        }
+        for (int p = 1; p <= table.size; p++) {
+            finalLabel[p] = finalLabel[table.find(p)];
+        }
+
+        ConnectedComponents components = new ConnectedComponents(width, height, provisional, count);
+        Arrays.fill(components.minX, Integer.MAX_VALUE);
+        Arrays.fill(components.minY, Integer.MAX_VALUE);
+        Arrays.fill(components.maxX, -1);
+        Arrays.fill(components.maxY, -1);
+        for (int p = 1; p <= table.size; p++) {
+            int l = finalLabel[p];
+            components.area[l] += table.area[p];
+            components.minX[l] = Math.min(components.minX[l], table.minX[p]);
+            components.minY[l] = Math.min(components.minY[l], table.minY[p]);
+            components.maxX[l] = Math.max(components.maxX[l], table.maxX[p]);
+            components.maxY[l] = Math.max(components.maxY[l], table.maxY[p]);
+            components.sumX[l] += table.sumX[p];
+            components.sumY[l] += table.sumY[p];
+        }
+
+        // Pass 2: rewrite provisional labels in place (parallel)
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int i = start * width; i < end * width; i++) {
+                provisional[i] = finalLabel[provisional[i]];
+            }
+        });
+        return components;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Number of components (labels run from 1 to count)
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Row-major label of every pixel, 0 for background
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+
+    public int getArea(int label) {
+        checkLabel(label);
+        return area[label];
+    }
+
+    /**
+     * {minX, minY, maxX, maxY} of a component (inclusive)
+     */
+    public int[] getBoundingBox(int label) {
+        checkLabel(label);
+        return new int[]{minX[label], minY[label], maxX[label], maxY[label]};
+    }
+
+    /**
+     * {x, y} mean position of a component's pixels
+     */
+    public double[] getCentroid(int label) {
+        checkLabel(label);
+        return new double[]{(double) sumX[label] / area[label], (double) sumY[label] / area[label]};
+    }
+
+    /**
+     * Whether a component has a pixel on the image border
+     */
+    public boolean touchesBorder(int label) {
+        checkLabel(label);
+        return minX[label] == 0 || minY[label] == 0 || maxX[label] == width - 1 || maxY[label] == height - 1;
+    }
+
+    /**
+     * Label of the component with the largest area (the first one on ties), or 0 if there is none
+     */
+    public int largest() {
+        int best = 0;
+        for (int l = 1; l <= count; l++) {
+            if (area[l] > area[best]) {
+                best = l;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Mask of the pixels of one component
+     */
+    public BinaryImage mask(int label) {
+        checkLabel(label);
+        BinaryImage mask = new BinaryImage(width, height);
+        for (int y = minY[label]; y <= maxY[label]; y++) {
+            for (int x = minX[label]; x <= maxX[label]; x++) {
+                if (labels[y * width + x] == label) {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private void checkLabel(int label) {
+        if (label < 1 || label > count) {
+            throw new IllegalArgumentException("No component with label " + label);
+        }
+    }
+
+    // Provisional labels of pass 1: union-find parents plus per-label statistics, grown on demand
+    private static class Provisional {
+        int size;
+        int[] parent = new int[INITIAL_CAPACITY];
+        int[] area = new int[INITIAL_CAPACITY];
+        int[] minX = new int[INITIAL_CAPACITY];
+        int[] minY = new int[INITIAL_CAPACITY];
+        int[] maxX = new int[INITIAL_CAPACITY];
+        int[] maxY = new int[INITIAL_CAPACITY];
+        long[] sumX = new long[INITIAL_CAPACITY];
+        long[] sumY = new long[INITIAL_CAPACITY];
+
+        int create(int x, int y) {
+            int label = ++size;
+            if (label == parent.length) {
+                int capacity = parent.length * 2;
+                parent = Arrays.copyOf(parent, capacity);
+                area = Arrays.copyOf(area, capacity);
+                minX = Arrays.copyOf(minX, capacity);
+                minY = Arrays.copyOf(minY, capacity);
+                maxX = Arrays.copyOf(maxX, capacity);
+                maxY = Arrays.copyOf(maxY, capacity);
+                sumX = Arrays.copyOf(sumX, capacity);
+                sumY = Arrays.copyOf(sumY, capacity);
+            }
+            parent[label] = label;
+            minX[label] = x;
+            minY[label] = y;
+            maxX[label] = x;
+            maxY[label] = y;
+            return label;
+        }
+
+        void add(int label, int x, int y) {
+            area[label]++;
+            minX[label] = Math.min(minX[label], x);
+            minY[label] = Math.min(minY[label], y);
+            maxX[label] = Math.max(maxX[label], x);
+            maxY[label] = Math.max(maxY[label], y);
+            sumX[label] += x;
+            sumY[label] += y;
+        }
+
+        // Merges the sets of a and b (either may be 0 for "no label") and returns the smaller root
+        int join(int a, int b) {
+            if (b == 0) {
+                return a;
+            }
+            int rootB = find(b);
+            if (a == 0) {
+                return rootB;
+            }
+            int rootA = find(a);
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+                return rootA;
+            }
+            parent[rootA] = rootB;
+            return rootB;
+        }
+
+        // Root of a label, halving the path on the way
+        int find(int label) {
+            while (parent[label] != label) {
+                parent[label] = parent[parent[label]];
+                label = parent[label];
+            }
+            return label;
+        }
+    }
+}
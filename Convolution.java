@@ -0,0 +1,358 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Spatial filtering with arbitrary kernels. Like most image libraries (and the Laplacian in
+ * ImageProcessing3) the kernel is applied without flipping, with its anchor at the center.
+ *
+ * The image is processed in cache-sized tiles, in parallel. Each tile first gathers its input
+ * plus a halo into a local buffer, resolving the border mode once, so the inner loops never
+ * check bounds. Rank-1 kernels are detected when built and run as a horizontal and a vertical
+ * 1-D pass. Integer samples use fixed-point weights with long accumulators.
+ */
+public class Convolution {
+    private static final int TILE_SIZE = 128;
+    private static final int FIXED_SHIFT = 14;
+
+    public enum BorderMode {
+        MIRROR, // reflect without repeating the edge pixel, like ImageProcessing.getMirroredPixel
+        CLAMP,  // repeat the edge pixel
+        WRAP,   // periodic
+        ZERO    // treat outside pixels as 0
+    }
+
+    public static class Kernel {
+        private final int width;
+        private final int height;
+        private final double[] weights;
+        private final int[] fixedWeights;
+        // Separable factors (weights[y][x] == column[y] * row[x]), or null
+        private final double[] row;
+        private final double[] column;
+        private final int[] fixedRow;
+        private final int[] fixedColumn;
+
+        public Kernel(double[][] weights) {
+            this.height = weights.length;
+            this.width = height == 0 ? 0 : weights[0].length;
+            if (width == 0) {
+                throw new IllegalArgumentException("Kernel must not be empty");
+            }
+            this.weights = new double[width * height];
+            for (int y = 0; y < height; y++) {
+                if (weights[y].length != width) {
+                    throw new IllegalArgumentException("Kernel rows must have the same length");
+                }
+                System.arraycopy(weights[y], 0, this.weights, y * width, width);
+            }
+            this.fixedWeights = toFixed(this.weights);
+
+            double[][] factors = factorize(this.weights, width, height);
+            this.row = factors == null ? null : factors[0];
+            this.column = factors == null ? null : factors[1];
+            this.fixedRow = row == null ? null : toFixed(row);
+            this.fixedColumn = column == null ? null : toFixed(column);
+        }
+
+        /**
+         * Kernel given directly by its 1-D factors: weights[y][x] = vertical[y] * horizontal[x]
+         */
+        public static Kernel separable(double[] horizontal, double[] vertical) {
+            double[][] weights = new double[vertical.length][horizontal.length];
+            for (int y = 0; y < vertical.length; y++) {
+                for (int x = 0; x < horizontal.length; x++) {
+                    weights[y][x] = vertical[y] * horizontal[x];
+                }
+            }
+            return new Kernel(weights);
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public boolean isSeparable() {
+            return row != null;
+        }
+
+        // Rank-1 test: take the row and column through the largest weight and check every product
+        private static double[][] factorize(double[] weights, int width, int height) {
+            int pivot = 0;
+            for (int i = 1; i < weights.length; i++) {
+                if (Math.abs(weights[i]) > Math.abs(weights[pivot])) {
+                    pivot = i;
+                }
+            }
+            double scale = weights[pivot];
+            if (scale == 0) {
+                return null;
+            }
+            int pivotX = pivot % width;
+            int pivotY = pivot / width;
+            double[] row = new double[width];
+            double[] column = new double[height];
+            for (int x = 0; x < width; x++) {
+                row[x] = weights[pivotY * width + x] / scale;
+            }
+            for (int y = 0; y < height; y++) {
+                column[y] = weights[y * width + pivotX];
+            }
+            double tolerance = Math.abs(scale) * 1e-9;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (Math.abs(column[y] * row[x] - weights[y * width + x]) > tolerance) {
+                        return null;
+                    }
+                }
+            }
+            return new double[][]{row, column};
+        }
+
+        private static int[] toFixed(double[] values) {
+            int[] fixed = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                fixed[i] = (int) Math.round(values[i] * (1 << FIXED_SHIFT));
+            }
+            return fixed;
+        }
+    }
+
+    /**
+     * Filters an 8-bit grayscale image; results are rounded and clamped to [0, 255]
+     */
+    public static BufferedImage apply(BufferedImage grayscaleImage, Kernel kernel, BorderMode border) {
+        if (grayscaleImage.getRaster().getNumBands() != 1
+                || grayscaleImage.getSampleModel().getSampleSize(0) != 8) {
+            throw new IllegalArgumentException("Image must be 8-bit grayscale");
+        }
+        int width = grayscaleImage.getWidth();
+        int height = grayscaleImage.getHeight();
+        int[] pixels = grayscaleImage.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int[] filtered = apply(pixels, width, height, kernel, border);
+        for (int i = 0; i < filtered.length; i++) {
+            filtered[i] = Math.max(0, Math.min(255, filtered[i]));
+        }
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        result.getRaster().setSamples(0, 0, width, height, 0, filtered);
+        return result;
+    }
+
+    /**
+     * Filters a plane of integer samples with fixed-point weights. Results are rounded but not
+     * clamped, so signed responses (e.g. edges) are preserved.
+     */
+    public static int[] apply(int[] pixels, int width, int height, Kernel kernel, BorderMode border) {
+        int[] result = new int[width * height];
+        int kw = kernel.width;
+        int kh = kernel.height;
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        ParallelBands.forEach(tilesX * tilesY, 1, (start, end) -> {
+            int[] buffer = new int[(TILE_SIZE + kw - 1) * (TILE_SIZE + kh - 1)];
+            long[] temp = kernel.isSeparable() ? new long[TILE_SIZE * (TILE_SIZE + kh - 1)] : null;
+            for (int tile = start; tile < end; tile++) {
+                int x0 = (tile % tilesX) * TILE_SIZE;
+                int y0 = (tile / tilesX) * TILE_SIZE;
+                int tw = Math.min(TILE_SIZE, width - x0);
+                int th = Math.min(TILE_SIZE, height - y0);
+                int bw = tw + kw - 1;
+                int bh = th + kh - 1;
+                gather(pixels, width, height, x0 - kw / 2, y0 - kh / 2, bw, bh, border, buffer);
+
+                if (kernel.isSeparable()) {
+                    int[] rowWeights = kernel.fixedRow;
+                    int[] columnWeights = kernel.fixedColumn;
+                    for (int by = 0; by < bh; by++) {
+                        for (int x = 0; x < tw; x++) {
+                            long acc = 0;
+                            int base = by * bw + x;
+                            for (int k = 0; k < kw; k++) {
+                                acc += (long) buffer[base + k] * rowWeights[k];
+                            }
+                            temp[by * tw + x] = acc;
+                        }
+                    }
+                    long half = 1L << (2 * FIXED_SHIFT - 1);
+                    for (int y = 0; y < th; y++) {
+                        int out = (y0 + y) * width + x0;
+                        for (int x = 0; x < tw; x++) {
+                            long acc = 0;
+                            for (int k = 0; k < kh; k++) {
+                                acc += temp[(y + k) * tw + x] * columnWeights[k];
+                            }
+                            result[out + x] = (int) ((acc + half) >> (2 * FIXED_SHIFT));
+                        }
+                    }
+                } else {
+                    int[] weights = kernel.fixedWeights;
+                    long half = 1L << (FIXED_SHIFT - 1);
+                    for (int y = 0; y < th; y++) {
+                        int out = (y0 + y) * width + x0;
+                        for (int x = 0; x < tw; x++) {
+                            long acc = 0;
+                            for (int ky = 0; ky < kh; ky++) {
+                                int base = (y + ky) * bw + x;
+                                int weightBase = ky * kw;
+                                for (int kx = 0; kx < kw; kx++) {
+                                    acc += (long) buffer[base + kx] * weights[weightBase + kx];
+                                }
+                            }
+                            result[out + x] = (int) ((acc + half) >> FIXED_SHIFT);
+                        }
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Filters a plane of float samples
+     */
+    public static float[] apply(float[] pixels, int width, int height, Kernel kernel, BorderMode border) {
+        float[] result = new float[width * height];
+        int kw = kernel.width;
+        int kh = kernel.height;
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        float[] weights = toFloat(kernel.weights);
+        float[] rowWeights = kernel.isSeparable() ? toFloat(kernel.row) : null;
+        float[] columnWeights = kernel.isSeparable() ? toFloat(kernel.column) : null;
+
+        ParallelBands.forEach(tilesX * tilesY, 1, (start, end) -> {
+            float[] buffer = new float[(TILE_SIZE + kw - 1) * (TILE_SIZE + kh - 1)];
+            float[] temp = kernel.isSeparable() ? new float[TILE_SIZE * (TILE_SIZE + kh - 1)] : null;
+            for (int tile = start; tile < end; tile++) {
+                int x0 = (tile % tilesX) * TILE_SIZE;
+                int y0 = (tile / tilesX) * TILE_SIZE;
+                int tw = Math.min(TILE_SIZE, width - x0);
+                int th = Math.min(TILE_SIZE, height - y0);
+                int bw = tw + kw - 1;
+                int bh = th + kh - 1;
+                gather(pixels, width, height, x0 - kw / 2, y0 - kh / 2, bw, bh, border, buffer);
+
+                if (kernel.isSeparable()) {
+                    for (int by = 0; by < bh; by++) {
+                        for (int x = 0; x < tw; x++) {
+                            float acc = 0;
+                            int base = by * bw + x;
+                            for (int k = 0; k < kw; k++) {
+                                acc += buffer[base + k] * rowWeights[k];
+                            }
+                            temp[by * tw + x] = acc;
+                        }
+                    }
+                    for (int y = 0; y < th; y++) {
+                        int out = (y0 + y) * width + x0;
+                        for (int x = 0; x < tw; x++) {
+                            float acc = 0;
+                            for (int k = 0; k < kh; k++) {
+                                acc += temp[(y + k) * tw + x] * columnWeights[k];
+                            }
+                            result[out + x] = acc;
+                        }
+                    }
+                } else {
+                    for (int y = 0; y < th; y++) {
+                        int out = (y0 + y) * width + x0;
+                        for (int x = 0; x < tw; x++) {
+                            float acc = 0;
+                            for (int ky = 0; ky < kh; ky++) {
+                                int base = (y + ky) * bw + x;
+                                int weightBase = ky * kw;
+                                for (int kx = 0; kx < kw; kx++) {
+                                    acc += buffer[base + kx] * weights[weightBase + kx];
+                                }
+                            }
+                            result[out + x] = acc;
+                        }
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Source index for a coordinate under the border mode, or -1 for a ZERO border outside the image
+     */
+    public static int borderIndex(int i, int length, BorderMode border) {
+        if (i >= 0 && i < length) {
+            return i;
+        }
+        switch (border) {
+            case CLAMP:
+                return i < 0 ? 0 : length - 1;
+            case WRAP:
+                return ((i % length) + length) % length;
+            case ZERO:
+                return -1;
+            default:
+                if (length == 1) {
+                    return 0;
+                }
+                while (i < 0 || i >= length) {
+                    i = i < 0 ? -i : 2 * length - 2 - i;
+                }
+                return i;
+        }
+    }
+
+    // Copies the window starting at (left, top) into buffer, resolving the border
+    private static void gather(int[] pixels, int width, int height, int left, int top, int bw, int bh,
+                               BorderMode border, int[] buffer) {
+        int[] columns = columnIndices(width, left, bw, border);
+        for (int by = 0; by < bh; by++) {
+            int sy = borderIndex(top + by, height, border);
+            int offset = by * bw;
+            if (sy < 0) {
+                Arrays.fill(buffer, offset, offset + bw, 0);
+                continue;
+            }
+            int rowOffset = sy * width;
+            for (int bx = 0; bx < bw; bx++) {
+                int sx = columns[bx];
+                buffer[offset + bx] = sx < 0 ? 0 : pixels[rowOffset + sx];
+            }
+        }
+    }
+
+    private static void gather(float[] pixels, int width, int height, int left, int top, int bw, int bh,
+                               BorderMode border, float[] buffer) {
+        int[] columns = columnIndices(width, left, bw, border);
+        for (int by = 0; by < bh; by++) {
+            int sy = borderIndex(top + by, height, border);
+            int offset = by * bw;
+            if (sy < 0) {
+                Arrays.fill(buffer, offset, offset + bw, 0f);
+                continue;
+            }
+            int rowOffset = sy * width;
+            for (int bx = 0; bx < bw; bx++) {
+                int sx = columns[bx];
+                buffer[offset + bx] = sx < 0 ? 0f : pixels[rowOffset + sx];
+            }
+        }
+    }
+
+    private static int[] columnIndices(int width, int left, int count, BorderMode border) {
+        int[] columns = new int[count];
+        for (int i = 0; i < count; i++) {
+            columns[i] = borderIndex(left + i, width, border);
+        }
+        return columns;
+    }
+
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+}
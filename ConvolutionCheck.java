@@ -0,0 +1,204 @@
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Compares Convolution against a brute-force reference that applies every tap directly, with
+ * its own border arithmetic, for all border modes, both sample types and both the dense and the
+ * separable path. Sizes cover 1-pixel images, images smaller than the kernel and images that
+ * cross tile boundaries. Run with: java ConvolutionCheck, or java Checks for every check.
+ */
+public class ConvolutionCheck {
+    // Fixed-point weights (2^-14) plus rounding, for kernels with weights in [-1, 1] and 8-bit input
+    private static final double INT_TOLERANCE = 1.0;
+    private static final double FLOAT_TOLERANCE = 1e-3;
+
+    public static void main(String[] args) {
+        Checks.main("convolution", ConvolutionCheck::run);
+    }
+
+    static void run(Checks checks) {
+        Random random = new Random(41);
+        int[][] sizes = {{1, 1}, {1, 7}, {7, 1}, {5, 3}, {129, 131}, {300, 260}};
+
+        double[][][] dense = {
+            {{-1, -1, -1}, {-1, 8, -1}, {-1, -1, -1}},
+            randomKernel(random, 5, 5),
+            randomKernel(random, 4, 2),
+        };
+        double[][][] separable = {
+            outer(new double[]{0.25, 0.5, 0.25}, new double[]{-1, 0, 1}),
+            outer(randomVector(random, 7), randomVector(random, 3)),
+            outer(randomVector(random, 5), new double[]{1}),
+            outer(gaussian(9, 2.0), gaussian(9, 2.0)),
+            {{0, 0, 0}, {1, 2, 1}, {0, 0, 0}},
+        };
+
+        checkDetection(checks, dense, false);
+        checkDetection(checks, separable, true);
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] pixels = new int[width * height];
+            float[] floats = new float[width * height];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = random.nextInt(256);
+                floats[i] = pixels[i] + random.nextFloat();
+            }
+            for (double[][][] group : new double[][][][]{dense, separable}) {
+                for (double[][] weights : group) {
+                    Convolution.Kernel kernel = new Convolution.Kernel(weights);
+                    for (Convolution.BorderMode border : Convolution.BorderMode.values()) {
+                        String name = width + "x" + height + " " + weights[0].length + "x" + weights.length
+                                + (kernel.isSeparable() ? " separable " : " dense ") + border;
+                        double[] expected = bruteForce(pixels, width, height, weights, border);
+                        int[] actual = Convolution.apply(pixels, width, height, kernel, border);
+                        double intError = 0;
+                        for (int i = 0; i < actual.length; i++) {
+                            intError = Math.max(intError, Math.abs(actual[i] - expected[i]));
+                        }
+                        checks.expect(intError <= INT_TOLERANCE, name + " int max error " + intError);
+
+                        double[] expectedFloat = bruteForce(floats, width, height, weights, border);
+                        float[] actualFloat = Convolution.apply(floats, width, height, kernel, border);
+                        double floatError = 0;
+                        for (int i = 0; i < actualFloat.length; i++) {
+                            floatError = Math.max(floatError, Math.abs(actualFloat[i] - expectedFloat[i]));
+                        }
+                        checks.expect(floatError <= FLOAT_TOLERANCE, name + " float max error " + floatError);
+                    }
+                }
+            }
+        }
+
+        // The image entry point rounds and clamps to 8 bits
+        BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_BYTE_GRAY);
+        int[] samples = new int[40 * 30];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256);
+        }
+        image.getRaster().setSamples(0, 0, 40, 30, 0, samples);
+        double[][] laplacian = dense[0];
+        BufferedImage filtered = Convolution.apply(image, new Convolution.Kernel(laplacian), Convolution.BorderMode.MIRROR);
+        double[] expected = bruteForce(samples, 40, 30, laplacian, Convolution.BorderMode.MIRROR);
+        int[] actual = filtered.getRaster().getSamples(0, 0, 40, 30, 0, (int[]) null);
+        int mismatches = 0;
+        for (int i = 0; i < actual.length; i++) {
+            if (actual[i] != Math.max(0, Math.min(255, (int) Math.round(expected[i])))) {
+                mismatches++;
+            }
+        }
+        checks.expect(mismatches == 0, "8-bit image clamping: " + mismatches + " mismatches");
+    }
+
+    private static void checkDetection(Checks checks, double[][][] kernels, boolean separable) {
+        for (double[][] weights : kernels) {
+            boolean detected = new Convolution.Kernel(weights).isSeparable();
+            checks.expect(detected == separable, weights[0].length + "x" + weights.length
+                    + " kernel detected as " + (detected ? "separable" : "dense"));
+        }
+    }
+
+    private static double[] bruteForce(int[] pixels, int width, int height, double[][] weights,
+                                       Convolution.BorderMode border) {
+        double[] values = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            values[i] = pixels[i];
+        }
+        return bruteForce(values, width, height, weights, border);
+    }
+
+    private static double[] bruteForce(float[] pixels, int width, int height, double[][] weights,
+                                       Convolution.BorderMode border) {
+        double[] values = new double[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            values[i] = pixels[i];
+        }
+        return bruteForce(values, width, height, weights, border);
+    }
+
+    private static double[] bruteForce(double[] pixels, int width, int height, double[][] weights,
+                                       Convolution.BorderMode border) {
+        int kh = weights.length;
+        int kw = weights[0].length;
+        double[] result = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                for (int ky = 0; ky < kh; ky++) {
+                    int sy = reference(y + ky - kh / 2, height, border);
+                    for (int kx = 0; kx < kw; kx++) {
+                        int sx = reference(x + kx - kw / 2, width, border);
+                        if (sx >= 0 && sy >= 0) {
+                            sum += weights[ky][kx] * pixels[sy * width + sx];
+                        }
+                    }
+                }
+                result[y * width + x] = sum;
+            }
+        }
+        return result;
+    }
+
+    // Border arithmetic written independently of Convolution.borderIndex
+    private static int reference(int i, int length, Convolution.BorderMode border) {
+        switch (border) {
+            case CLAMP:
+                return Math.max(0, Math.min(length - 1, i));
+            case WRAP:
+                return Math.floorMod(i, length);
+            case ZERO:
+                return i >= 0 && i < length ? i : -1;
+            default:
+                // Reflection without repeating the edge is periodic with period 2 * (length - 1)
+                if (length == 1) {
+                    return 0;
+                }
+                int period = 2 * (length - 1);
+                int m = Math.floorMod(i, period);
+                return m < length ? m : period - m;
+        }
+    }
+
+    private static double[][] randomKernel(Random random, int width, int height) {
+        double[][] weights = new double[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                weights[y][x] = random.nextDouble() * 2 - 1;
+            }
+        }
+        return weights;
+    }
+
+    private static double[] randomVector(Random random, int length) {
+        double[] vector = new double[length];
+        for (int i = 0; i < length; i++) {
+            vector[i] = random.nextDouble() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private static double[] gaussian(int size, double sigma) {
+        double[] weights = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            double d = i - size / 2;
+            weights[i] = Math.exp(-d * d / (2 * sigma * sigma));
+            sum += weights[i];
+        }
+        for (int i = 0; i < size; i++) {
+            weights[i] /= sum;
+        }
+        return weights;
+    }
+
+    private static double[][] outer(double[] horizontal, double[] vertical) {
+        double[][] weights = new double[vertical.length][horizontal.length];
+        for (int y = 0; y < vertical.length; y++) {
+            for (int x = 0; x < horizontal.length; x++) {
+                weights[y][x] = vertical[y] * horizontal[x];
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,210 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Exact Euclidean distance transform (Felzenszwalb and Huttenlocher): for every pixel, the
+ * distance to the nearest background (zero) pixel. This equals cv2.distanceTransform(mask,
+ * DIST_L2, DIST_MASK_PRECISE) only: with maskSize 3 or 5 OpenCV runs a chamfer approximation
+ * (5x5 weights 1, 1.4, 2.1969, see chamfer5x5) whose values differ from the true distance.
+ * Columns are scanned first (1-D distance to the nearest background pixel in the column), then
+ * every row takes the lower envelope of the parabolas centered at each pixel, which is linear
+ * in the row length. Both passes run in parallel.
+ *
+ * Pixels with no background anywhere in the image get Float.POSITIVE_INFINITY.
+ */
+public class DistanceTransform {
+    private static final float INFINITY = Float.POSITIVE_INFINITY;
+    private static final int MIN_STRIP_COLUMNS = 64;
+    // Chamfer weights of cv2.distanceTransform(DIST_L2, 5) in 16-bit fixed point, as OpenCV rounds them
+    private static final int CHAMFER_SHIFT = 16;
+    private static final int CHAMFER_STRAIGHT = 65536;   // 1
+    private static final int CHAMFER_DIAGONAL = 91750;   // 1.4
+    private static final int CHAMFER_KNIGHT = 143976;    // 2.1969
+    private static final int CHAMFER_FAR = Integer.MAX_VALUE - CHAMFER_KNIGHT;
+
+    /**
+     * Distances for a mask given as band 0 of an image (non-zero = foreground)
+     */
+    public static float[] distance(BufferedImage mask) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        int[] samples = mask.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        return sqrt(squaredDistance((y, start, end, strip) -> {
+            for (int x = start; x < end; x++) {
+                strip[x - start] = samples[y * width + x] != 0;
+            }
+        }, width, height));
+    }
+
+    /**
+     * Distances for a byte mask (non-zero = foreground)
+     */
+    public static float[] distance(byte[] mask, int width, int height) {
+        return sqrt(squaredDistance((y, start, end, strip) -> {
+            for (int x = start; x < end; x++) {
+                strip[x - start] = mask[y * width + x] != 0;
+            }
+        }, width, height));
+    }
+
+    public static float[] distance(BinaryImage mask) {
+        return sqrt(squaredDistance(mask));
+    }
+
+    /**
+     * Squared distances for a bit-packed mask, read in place (no unpacked copy of the mask)
+     */
+    public static float[] squaredDistance(BinaryImage mask) {
+        return squaredDistance((y, start, end, strip) -> {
+            for (int x = start; x < end; x++) {
+                strip[x - start] = mask.get(x, y);
+            }
+        }, mask.getWidth(), mask.getHeight());
+    }
+
+    /**
+     * Squared distance of every foreground pixel to the nearest background pixel (0 on background)
+     */
+    public static float[] squaredDistance(boolean[] foreground, int width, int height) {
+        return squaredDistance((y, start, end, strip) ->
+                System.arraycopy(foreground, y * width + start, strip, 0, end - start), width, height);
+    }
+
+    // Copies the foreground flags of columns [start, end) of row y, so every mask type is read
+    // in place a row of a strip at a time
+    private interface RowReader {
+        void read(int y, int start, int end, boolean[] strip);
+    }
+
+    private static float[] squaredDistance(RowReader foreground, int width, int height) {
+        float[] result = new float[width * height];
+
+        // Columns: distance to the nearest background pixel in the same column, two scans per
+        // column, a strip of columns at a time so memory is read row by row
+        ParallelBands.forEach(width, MIN_STRIP_COLUMNS, (start, end) -> {
+            int stripWidth = end - start;
+            float[] distance = new float[stripWidth];
+            boolean[] strip = new boolean[stripWidth];
+            Arrays.fill(distance, INFINITY);
+            for (int y = 0; y < height; y++) {
+                foreground.read(y, start, end, strip);
+                for (int i = 0; i < stripWidth; i++) {
+                    int index = y * width + start + i;
+                    distance[i] = strip[i] ? distance[i] + 1 : 0;
+                    result[index] = distance[i];
+                }
+            }
+            // The first scan left 0 exactly on background pixels
+            Arrays.fill(distance, INFINITY);
+            for (int y = height - 1; y >= 0; y--) {
+                for (int i = 0; i < stripWidth; i++) {
+                    int index = y * width + start + i;
+                    distance[i] = result[index] != 0 ? distance[i] + 1 : 0;
+                    float nearest = Math.min(result[index], distance[i]);
+                    result[index] = nearest * nearest;
+                }
+            }
+        });
+
+        // Rows: lower envelope of parabolas (x - q)^2 + f(q)
+        ParallelBands.forEach(height, (start, end) -> {
+            float[] f = new float[width];
+            float[] d = new float[width];
+            int[] vertices = new int[width];
+            double[] boundaries = new double[width + 1];
+            for (int y = start; y < end; y++) {
+                System.arraycopy(result, y * width, f, 0, width);
+                lowerEnvelope(f, width, d, vertices, boundaries);
+                System.arraycopy(d, 0, result, y * width, width);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The 5x5 chamfer distance cv2.distanceTransform(mask, DIST_L2, 5) computes: one forward and
+     * one backward raster scan with weights 1, 1.4 and 2.1969 in 16-bit fixed point, pixels
+     * outside the image counting as foreground. It is within about 2% of the Euclidean distance
+     * either way; use it where results must match OpenCV's. The scans depend on the previous row,
+     * so this one runs sequentially. Pixels with no background anywhere get Float.POSITIVE_INFINITY.
+     */
+    public static float[] chamfer5x5(boolean[] foreground, int width, int height) {
+        // Two rows and columns of padding keep the scans free of bounds checks
+        int stride = width + 4;
+        int[] cost = new int[stride * (height + 4)];
+        Arrays.fill(cost, CHAMFER_FAR);
+        int s2 = 2 * stride;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, j = (y + 2) * stride + 2; x < width; x++, j++) {
+                if (!foreground[y * width + x]) {
+                    cost[j] = 0;
+                    continue;
+                }
+                int t = Math.min(cost[j - s2 - 1], cost[j - s2 + 1]) + CHAMFER_KNIGHT;
+                t = Math.min(t, Math.min(cost[j - stride - 2], cost[j - stride + 2]) + CHAMFER_KNIGHT);
+                t = Math.min(t, Math.min(cost[j - stride - 1], cost[j - stride + 1]) + CHAMFER_DIAGONAL);
+                t = Math.min(t, Math.min(cost[j - stride], cost[j - 1]) + CHAMFER_STRAIGHT);
+                cost[j] = Math.min(t, CHAMFER_FAR);
+            }
+        }
+        float[] result = new float[width * height];
+        float scale = 1f / (1 << CHAMFER_SHIFT);
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1, j = (y + 2) * stride + width + 1; x >= 0; x--, j--) {
+                int t = cost[j];
+                if (t > CHAMFER_STRAIGHT) {
+                    t = Math.min(t, Math.min(cost[j + s2 - 1], cost[j + s2 + 1]) + CHAMFER_KNIGHT);
+                    t = Math.min(t, Math.min(cost[j + stride - 2], cost[j + stride + 2]) + CHAMFER_KNIGHT);
+                    t = Math.min(t, Math.min(cost[j + stride - 1], cost[j + stride + 1]) + CHAMFER_DIAGONAL);
+                    t = Math.min(t, Math.min(cost[j + stride], cost[j + 1]) + CHAMFER_STRAIGHT);
+                    cost[j] = Math.min(t, CHAMFER_FAR);
+                }
+                result[y * width + x] = cost[j] == CHAMFER_FAR ? INFINITY : cost[j] * scale;
+            }
+        }
+        return result;
+    }
+
+    // 1-D squared distance transform of a sampled function (Felzenszwalb-Huttenlocher)
+    private static void lowerEnvelope(float[] f, int n, float[] d, int[] vertices, double[] boundaries) {
+        int k = -1;
+        for (int q = 0; q < n; q++) {
+            if (f[q] == INFINITY) {
+                continue; // infinite parabolas never lie on the envelope
+            }
+            double s = 0;
+            while (k >= 0) {
+                int v = vertices[k];
+                s = ((f[q] + (double) q * q) - (f[v] + (double) v * v)) / (2.0 * (q - v));
+                if (s > boundaries[k]) {
+                    break;
+                }
+                k--;
+            }
+            k++;
+            vertices[k] = q;
+            boundaries[k] = k == 0 ? Double.NEGATIVE_INFINITY : s;
+            boundaries[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        if (k < 0) {
+            Arrays.fill(d, 0, n, INFINITY);
+            return;
+        }
+        int j = 0;
+        for (int q = 0; q < n; q++) {
+            while (boundaries[j + 1] < q) {
+                j++;
+            }
+            int v = vertices[j];
+            d[q] = (float) ((double) (q - v) * (q - v) + f[v]);
+        }
+    }
+
+    private static float[] sqrt(float[] squared) {
+        for (int i = 0; i < squared.length; i++) {
+            squared[i] = (float) Math.sqrt(squared[i]);
+        }
+        return squared;
+    }
+}
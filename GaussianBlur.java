@@ -0,0 +1,268 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Gaussian blur with Deriche's fourth-order recursive filter (1993), so the cost per pixel does
+ * not depend on sigma. The Gaussian is approximated by two damped cosines and split into a
+ * causal and an anti-causal recursion whose outputs are summed (parallel form). Rows are
+ * filtered in parallel, then columns in parallel vertical strips (the recursion runs down the
+ * strip a whole row segment at a time, which keeps memory access sequential).
+ *
+ * Edges are extended by replicating the border value. In the parallel form both recursions see
+ * only the input, so a constant extension puts each one exactly in its steady state at the edge:
+ * the borders need no padding and are as accurate as the interior. Against the sampled kernel,
+ * the result stays within 0.25 gray levels for 8-bit data and sigma from 0.5 to 25
+ * (GaussianBlurCheck).
+ *
+ * Smaller sigmas use an exact sampled kernel through Convolution.
+ */
+public class GaussianBlur {
+    private static final double MIN_RECURSIVE_SIGMA = 0.5;
+    private static final int MIN_STRIP_COLUMNS = 64;
+    // Deriche's fit: g(t) ~ sum of (a cos(w t) + b sin(w t)) e^(-l t), t = x / sigma; rows are {a, b, w, l}
+    private static final double[][] DERICHE_TERMS = {
+        {1.68, 3.735, 0.6318, 1.783},
+        {-0.6803, -0.2598, 1.997, 1.723}
+    };
+
+    /**
+     * OpenCV's sigma for a ksize x ksize GaussianBlur called with sigma 0 (as in test.py)
+     */
+    public static double sigmaForKernelSize(int kernelSize) {
+        return 0.3 * ((kernelSize - 1) * 0.5 - 1) + 0.8;
+    }
+
+    public static BufferedImage blur(BufferedImage grayscaleImage, double sigma) {
+        if (grayscaleImage.getRaster().getNumBands() != 1
+                || grayscaleImage.getSampleModel().getSampleSize(0) != 8) {
+            throw new IllegalArgumentException("Image must be 8-bit grayscale");
+        }
+        int width = grayscaleImage.getWidth();
+        int height = grayscaleImage.getHeight();
+        float[] plane = grayscaleImage.getRaster().getSamples(0, 0, width, height, 0, (float[]) null);
+        float[] blurred = blur(plane, width, height, sigma);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = Math.max(0, Math.min(255, Math.round(blurred[y * width + x])));
+            }
+            result.getRaster().setSamples(0, y, width, 1, 0, row);
+        }
+        return result;
+    }
+
+    /**
+     * Blurs a float plane and returns a new plane
+     */
+    public static float[] blur(float[] pixels, int width, int height, double sigma) {
+        if (sigma <= 0) {
+            throw new IllegalArgumentException("Sigma must be positive");
+        }
+        if (sigma < MIN_RECURSIVE_SIGMA) {
+            return blurExact(pixels, width, height, sigma);
+        }
+        double[] c = coefficients(sigma);
+        float[] result = new float[width * height];
+
+        // Rows: causal plus anti-causal recursion along each row
+        ParallelBands.forEach(height, (start, end) -> {
+            double[] line = new double[width];
+            double[] causal = new double[width];
+            for (int y = start; y < end; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    line[x] = pixels[offset + x];
+                }
+                filterLine(line, causal, width, c);
+                for (int x = 0; x < width; x++) {
+                    result[offset + x] = (float) line[x];
+                }
+            }
+        });
+
+        // Columns: the same recursions, advanced one row at a time over a strip of columns
+        double n0 = c[0], n1 = c[1], n2 = c[2], n3 = c[3];
+        double m1 = c[4], m2 = c[5], m3 = c[6], m4 = c[7];
+        double d1 = c[8], d2 = c[9], d3 = c[10], d4 = c[11];
+        double denominator = 1 + d1 + d2 + d3 + d4;
+        double causalGain = (n0 + n1 + n2 + n3) / denominator;
+        double antiCausalGain = (m1 + m2 + m3 + m4) / denominator;
+        ParallelBands.forEach(width, MIN_STRIP_COLUMNS, (start, end) -> {
+            int stripWidth = end - start;
+            double[] x1 = new double[stripWidth];
+            double[] x2 = new double[stripWidth];
+            double[] x3 = new double[stripWidth];
+            double[] x4 = new double[stripWidth];
+            double[] y1 = new double[stripWidth];
+            double[] y2 = new double[stripWidth];
+            double[] y3 = new double[stripWidth];
+            double[] y4 = new double[stripWidth];
+            double[] causal = new double[stripWidth * height];
+
+            // Causal pass, starting from the steady state of the replicated first row
+            for (int i = 0; i < stripWidth; i++) {
+                double edge = result[start + i];
+                x1[i] = x2[i] = x3[i] = edge;
+                y1[i] = y2[i] = y3[i] = y4[i] = edge * causalGain;
+            }
+            for (int y = 0; y < height; y++) {
+                int offset = y * width + start;
+                int base = y * stripWidth;
+                for (int i = 0; i < stripWidth; i++) {
+                    double x = result[offset + i];
+                    double value = n0 * x + n1 * x1[i] + n2 * x2[i] + n3 * x3[i]
+                            - d1 * y1[i] - d2 * y2[i] - d3 * y3[i] - d4 * y4[i];
+                    x3[i] = x2[i];
+                    x2[i] = x1[i];
+                    x1[i] = x;
+                    y4[i] = y3[i];
+                    y3[i] = y2[i];
+                    y2[i] = y1[i];
+                    y1[i] = value;
+                    causal[base + i] = value;
+                }
+            }
+
+            // Anti-causal pass from the steady state of the replicated last row; the input of
+            // each row is taken into the state before the row is overwritten
+            for (int i = 0; i < stripWidth; i++) {
+                double edge = result[(height - 1) * width + start + i];
+                x1[i] = x2[i] = x3[i] = x4[i] = edge;
+                y1[i] = y2[i] = y3[i] = y4[i] = edge * antiCausalGain;
+            }
+            for (int y = height - 1; y >= 0; y--) {
+                int offset = y * width + start;
+                int base = y * stripWidth;
+                for (int i = 0; i < stripWidth; i++) {
+                    double value = m1 * x1[i] + m2 * x2[i] + m3 * x3[i] + m4 * x4[i]
+                            - d1 * y1[i] - d2 * y2[i] - d3 * y3[i] - d4 * y4[i];
+                    x4[i] = x3[i];
+                    x3[i] = x2[i];
+                    x2[i] = x1[i];
+                    x1[i] = result[offset + i];
+                    y4[i] = y3[i];
+                    y3[i] = y2[i];
+                    y2[i] = y1[i];
+                    y1[i] = value;
+                    result[offset + i] = (float) (causal[base + i] + value);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reference blur with a sampled and normalized kernel of radius ceil(4 * sigma)
+     * (replicated border, like the recursive filter)
+     */
+    public static float[] blurExact(float[] pixels, int width, int height, double sigma) {
+        int radius = Math.max(1, (int) Math.ceil(4 * sigma));
+        double[] kernel = new double[2 * radius + 1];
+        double sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            kernel[i + radius] = Math.exp(-(i * i) / (2 * sigma * sigma));
+            sum += kernel[i + radius];
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= sum;
+        }
+        return Convolution.apply(pixels, width, height, Convolution.Kernel.separable(kernel, kernel),
+                Convolution.BorderMode.CLAMP);
+    }
+
+    // {n0..n3, m1..m4, d1..d4} of y+[k] = sum n_i x[k-i] - sum d_i y+[k-i] and
+    // y-[k] = sum m_i x[k+i] - sum d_i y-[k+i], scaled to unit DC gain
+    private static double[] coefficients(double sigma) {
+        double[][] numerators = new double[2][];
+        double[][] denominators = new double[2][];
+        for (int t = 0; t < 2; t++) {
+            double a = DERICHE_TERMS[t][0];
+            double b = DERICHE_TERMS[t][1];
+            double w = DERICHE_TERMS[t][2] / sigma;
+            double r = Math.exp(-DERICHE_TERMS[t][3] / sigma);
+            // z-transform of the causal samples of one damped cosine
+            numerators[t] = new double[]{a, r * (b * Math.sin(w) - a * Math.cos(w))};
+            denominators[t] = new double[]{1, -2 * r * Math.cos(w), r * r};
+        }
+        double[] n = new double[4];
+        double[] d = new double[5];
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                n[i + j] += numerators[0][i] * denominators[1][j] + numerators[1][i] * denominators[0][j];
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                d[i + j] += denominators[0][i] * denominators[1][j];
+            }
+        }
+        // The anti-causal half mirrors the causal one without the center sample
+        double[] m = new double[5];
+        for (int i = 1; i <= 3; i++) {
+            m[i] = n[i] - d[i] * n[0];
+        }
+        m[4] = -d[4] * n[0];
+
+        double sum = 0;
+        double denominator = 0;
+        for (int i = 0; i < 4; i++) {
+            sum += n[i] + m[i + 1];
+        }
+        for (double value : d) {
+            denominator += value;
+        }
+        double scale = denominator / sum;
+        return new double[]{n[0] * scale, n[1] * scale, n[2] * scale, n[3] * scale,
+                m[1] * scale, m[2] * scale, m[3] * scale, m[4] * scale, d[1], d[2], d[3], d[4]};
+    }
+
+    // Filters a line in place; causal is scratch space of the same length
+    private static void filterLine(double[] line, double[] causal, int length, double[] c) {
+        double denominator = 1 + c[8] + c[9] + c[10] + c[11];
+        double first = line[0];
+        double x1 = first;
+        double x2 = first;
+        double x3 = first;
+        double y1 = first * (c[0] + c[1] + c[2] + c[3]) / denominator;
+        double y2 = y1;
+        double y3 = y1;
+        double y4 = y1;
+        for (int i = 0; i < length; i++) {
+            double x = line[i];
+            double value = c[0] * x + c[1] * x1 + c[2] * x2 + c[3] * x3
+                    - c[8] * y1 - c[9] * y2 - c[10] * y3 - c[11] * y4;
+            x3 = x2;
+            x2 = x1;
+            x1 = x;
+            y4 = y3;
+            y3 = y2;
+            y2 = y1;
+            y1 = value;
+            causal[i] = value;
+        }
+
+        double last = line[length - 1];
+        x1 = last;
+        x2 = last;
+        x3 = last;
+        double x4 = last;
+        y1 = last * (c[4] + c[5] + c[6] + c[7]) / denominator;
+        y2 = y1;
+        y3 = y1;
+        y4 = y1;
+        for (int i = length - 1; i >= 0; i--) {
+            double value = c[4] * x1 + c[5] * x2 + c[6] * x3 + c[7] * x4
+                    - c[8] * y1 - c[9] * y2 - c[10] * y3 - c[11] * y4;
+            x4 = x3;
+            x3 = x2;
+            x2 = x1;
+            x1 = line[i];
+            y4 = y3;
+            y3 = y2;
+            y2 = y1;
+            y1 = value;
+            line[i] = causal[i] + value;
+        }
+    }
+}
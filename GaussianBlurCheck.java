@@ -0,0 +1,53 @@
+import java.util.Random;
+
+/**
+ * Checks the recursive GaussianBlur against the sampled kernel (GaussianBlur.blurExact) over the
+ * whole image, borders included, for sigma from 0.5 to 25 on noise, hard edges and a ramp, and
+ * for degenerate sizes. The common pool is forced to 4 workers so rows and column strips split.
+ * Run with: java GaussianBlurCheck, or java Checks for every check.
+ */
+public class GaussianBlurCheck {
+    // Gray levels on 8-bit data, the accuracy stated in GaussianBlur
+    private static final double TOLERANCE = 0.25;
+
+    public static void main(String[] args) {
+        Checks.main("Gaussian blur", GaussianBlurCheck::run);
+    }
+
+    static void run(Checks checks) {
+        double[] sigmas = {0.3, 0.5, 0.6, 0.8, 1, 1.5, 2, 3, 5, 8, 12, 18, 25};
+        int[][] sizes = {{400, 300}, {1, 1}, {3, 2}, {5, 200}, {200, 5}};
+        Random random = new Random(43);
+        double worst = 0;
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            String[] names = {"noise", "edges", "ramp"};
+            float[][] planes = new float[3][width * height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int i = y * width + x;
+                    planes[0][i] = random.nextInt(256);
+                    planes[1][i] = (x / 50 + y / 40) % 2 == 0 ? 0 : 255;
+                    planes[2][i] = width > 1 ? x * 255f / (width - 1) : 128;
+                }
+            }
+            for (double sigma : sigmas) {
+                for (int p = 0; p < planes.length; p++) {
+                    float[] recursive = GaussianBlur.blur(planes[p], width, height, sigma);
+                    float[] exact = GaussianBlur.blurExact(planes[p], width, height, sigma);
+                    double error = 0;
+                    for (int i = 0; i < exact.length; i++) {
+                        error = Math.max(error, Math.abs(recursive[i] - exact[i]));
+                    }
+                    worst = Math.max(worst, error);
+                    checks.expect(error <= TOLERANCE, String.format("%dx%d %s sigma %.1f: max error %.4f",
+                            width, height, names[p], sigma, error));
+                }
+            }
+        }
+
+        System.out.printf("Largest error: %.4f gray levels (tolerance %.2f)%n", worst, TOLERANCE);
+    }
+}
@@ -62,6 +62,13 @@ public class ImageDisplay {
         int newWidth = (int) (original.getWidth() * ratio);
         int newHeight = (int) (original.getHeight() * ratio);
 
+        // Downscaling is served from the cached pyramid, so repeated previews are nearly free.
+        // The pyramid caches levels per image instance: displayed images must not be modified
+        // in place afterwards (or ImagePyramid.invalidate must be called), or stale levels are shown
+        if (ratio < 1 && newWidth > 0 && newHeight > 0) {
+            return ImagePyramid.of(original).resize(newWidth, newHeight, Resampler.Kernel.BICUBIC);
+        }
+
         BufferedImage scaled = new BufferedImage(newWidth, newHeight, original.getType());
         Graphics2D g2d = scaled.createGraphics();
         g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
@@ -3,33 +3,28 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 public class ImageProcessing {
+    private static final PointOp CUSTOM_GRAYSCALE_OP = PointOp.ofNormalized(ImageProcessing::applyCustomTransform);
     
     public static BufferedImage convertToGrayscale(BufferedImage imageFile) throws IOException {
         BufferedImage original = imageFile;
         if (original == null) {
             throw new IOException("Image file is null or could not be read.");
         }
-        BufferedImage grayscale = new BufferedImage(
-            original.getWidth(), 
-            original.getHeight(), 
-            BufferedImage.TYPE_BYTE_GRAY);
         
-        // Convert image to grayscale with luminosity formula
-        for (int y = 0; y < original.getHeight(); y++) {
-            for (int x = 0; x < original.getWidth(); x++) {
-                Color color = new Color(original.getRGB(x, y));
-                int gray = (int)(0.299 * color.getRed() + 
-                                0.587 * color.getGreen() + 
-                                0.114 * color.getBlue());
-                grayscale.setRGB(x, y, new Color(gray, gray, gray).getRGB());
-            }
-        }
-        return grayscale;
+        // Convert image to grayscale with luminosity formula, in a single row-wise pass
+        return new PointPipeline().grayscale().run(original);
     }
 
     public static BufferedImage zoom(BufferedImage img, int factor, String method) {
         int newWidth = img.getWidth() * factor;
         int newHeight = img.getHeight() * factor;
+        
+        // Kernel-based methods ("bicubic", "lanczos2", "lanczos3", "mitchell")
+        Resampler.Kernel kernel = Resampler.Kernel.forName(method);
+        if (kernel != null) {
+            return Resampler.resize(img, newWidth, newHeight, kernel);
+        }
+        
         BufferedImage zoomed = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
         
         if ("replication".equals(method)) {
@@ -49,6 +44,15 @@ public class ImageProcessing {
     public static BufferedImage shrink(BufferedImage img, int factor, String method) {
         int newWidth = img.getWidth() / factor;
         int newHeight = img.getHeight() / factor;
+        
+        // Kernel-based methods ("bicubic", "lanczos2", "lanczos3", "mitchell"),
+        // served from the cached pyramid so factors 2/4/8 reuse already reduced levels
+        // (img must not be modified in place later without ImagePyramid.invalidate)
+        Resampler.Kernel kernel = Resampler.Kernel.forName(method);
+        if (kernel != null) {
+            return ImagePyramid.of(img).resize(newWidth, newHeight, kernel);
+        }
+        
         BufferedImage shrunk = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
         
         if ("replication".equals(method)) {
@@ -153,101 +157,55 @@ public class ImageProcessing {
     }
 
     public static BufferedImage powerLawTransform(BufferedImage inputImage, double c, double gamma) {
-        int width = inputImage.getWidth();
-        int height = inputImage.getHeight();
-        BufferedImage outputImage = new BufferedImage(width, height, inputImage.getType());
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (isGrayscale(inputImage)) {
-                    // Process grayscale image
-                    int gray = inputImage.getRaster().getSample(x, y, 0);
-                    int transformed = powerTransformPixel(gray, c, gamma);
-                    outputImage.getRaster().setSample(x, y, 0, transformed);
-                } else {
-                    // Process color image (RGB)
-                    int rgb = inputImage.getRGB(x, y);
-                    int r = (rgb >> 16) & 0xFF;
-                    int g = (rgb >> 8) & 0xFF;
-                    int b = rgb & 0xFF;
-                    
-                    // Apply transformation to each channel
-                    r = powerTransformPixel(r, c, gamma);
-                    g = powerTransformPixel(g, c, gamma);
-                    b = powerTransformPixel(b, c, gamma);
-                    
-                    // Set new RGB value
-                    int newRgb = (r << 16) | (g << 8) | b;
-                    outputImage.setRGB(x, y, newRgb);
-                }
-            }
-        }
-        
-        return outputImage;
+        // One table lookup per sample (gray: one table, RGB: per-channel tables)
+        return powerLawOp(c, gamma).apply(inputImage);
+    }
+
+    /**
+     * Power-law mapping s = c * r^gamma compiled into a lookup table
+     */
+    public static PointOp powerLawOp(double c, double gamma) {
+        return PointOp.ofNormalized(normalized -> applyPowerTransform(normalized, c, gamma));
     }
 
     public static BufferedImage customGrayscaleTransform(BufferedImage inputImage) {
         if (!isGrayscale(inputImage)) {
             throw new IllegalArgumentException("Input image must be grayscale");
         }
-        
-        int width = inputImage.getWidth();
-        int height = inputImage.getHeight();
-        BufferedImage outputImage = new BufferedImage(width, height, inputImage.getType());
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // Get normalized grayscale value [0, 1]
-                int grayValue = inputImage.getRaster().getSample(x, y, 0);
-                double normalized = grayValue / 255.0;
-                
-                // Apply transformation
-                double transformed;
-                if (normalized <= 0.25 || normalized >= 0.75) {
-                    transformed = 0.8333;
-                } else {
-                    transformed = -1.3333 * normalized + 1.1667;
-                }
-                
-                // Clamp and convert back to [0, 255]
-                int newGray = (int) Math.round(Math.max(0, Math.min(1, transformed)) * 255);
-                outputImage.getRaster().setSample(x, y, 0, newGray);
-            }
-        }
-        return outputImage;
+        return CUSTOM_GRAYSCALE_OP.apply(inputImage);
     }
 
-    private static double normalizePixel(int pixel) {
-        return pixel / 255.0;
+    /**
+     * Custom mapping [0,0.25]∪[0.75,1] -> 0.8333, (0.25,0.75) -> linear, as a lookup table
+     */
+    public static PointOp customGrayscaleOp() {
+        return CUSTOM_GRAYSCALE_OP;
     }
-    
-    private static int denormalizePixel(double transformedPixel) {
-        int newPixel = (int) Math.round(transformedPixel * 255);
-        return Math.max(0, Math.min(255, newPixel));  // Clamp to [0, 255]
+
+    private static double applyCustomTransform(double normalized) {
+        if (normalized <= 0.25 || normalized >= 0.75) {
+            return 0.8333;
+        }
+        return -1.3333 * normalized + 1.1667;
     }
 
     private static double applyPowerTransform(double normalizedPixel, double c, double gamma) {
         return c * Math.pow(normalizedPixel, gamma);
     }
-    
-    private static int powerTransformPixel(int pixel, double c, double gamma) {
-        double normalized = normalizePixel(pixel);               // Step 1: Normalize
-        double transformed = applyPowerTransform(normalized, c, gamma); // Step 2: Transform
-        return denormalizePixel(transformed);                    // Step 3: Denormalize + clamp
-    }
 
     public static BufferedImage[] transformMultiple(BufferedImage inputImage, 
                                                   double[] cValues, double[] gammaValues) {
         int total = cValues.length * gammaValues.length;
-        BufferedImage[] results = new BufferedImage[total];
+        PointOp[] ops = new PointOp[total];
         int index = 0;
         
         for (double gamma : gammaValues) {
             for (double c : cValues) {
-                results[index++] = powerLawTransform(inputImage, c, gamma);
+                ops[index++] = powerLawOp(c, gamma);
             }
         }
         
-        return results;
+        // Single pass over the input writing every (c, gamma) result
+        return PointOp.applyAll(inputImage, ops);
     }
 }
\ No newline at end of file
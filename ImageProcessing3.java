@@ -5,6 +5,18 @@ import java.awt.Color;
 import java.util.Collection;
 
 public class ImageProcessing3 {
+    // TYPE_BYTE_GRAY stores linear gray: getRGB() and setRGB() convert through these tables
+    private static final int[] SAMPLE_TO_GRAY = new int[256];
+    private static final int[] GRAY_TO_SAMPLE = new int[256];
+    static {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY);
+        for (int v = 0; v < 256; v++) {
+            probe.getRaster().setSample(0, 0, 0, v);
+            SAMPLE_TO_GRAY[v] = new Color(probe.getRGB(0, 0)).getRed();
+            probe.setRGB(0, 0, new Color(v, v, v).getRGB());
+            GRAY_TO_SAMPLE[v] = probe.getRaster().getSample(0, 0, 0);
+        }
+    }
 
     public static BufferedImage createSpectrum(BufferedImage inputImage) {
         // Convert to grayscale if needed
@@ -295,25 +307,13 @@ private static double intensityToMagnitude(int intensity) {
         return result;
     }
 
-    // Improved resize method with better interpolation
+    // Improved resize method with better interpolation (Lanczos-3, no Graphics2D)
     public static BufferedImage resizeToDimensions(BufferedImage image, int targetWidth, int targetHeight) {
         if (image.getWidth() == targetWidth && image.getHeight() == targetHeight) {
             return image;
         }
         
-        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, image.getType());
-        java.awt.Graphics2D g = resized.createGraphics();
-        
-        // Use high-quality rendering hints for better resizing
-        g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, 
-                        java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g.setRenderingHint(java.awt.RenderingHints.KEY_RENDERING,
-                        java.awt.RenderingHints.VALUE_RENDER_QUALITY);
-        g.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING,
-                        java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
-        g.dispose();
+        BufferedImage resized = Resampler.resize(image, targetWidth, targetHeight, Resampler.Kernel.LANCZOS3);
         
         System.out.println("Resized image from " + image.getWidth() + "x" + image.getHeight() + 
                         " to " + targetWidth + "x" + targetHeight);
@@ -333,12 +333,7 @@ private static double intensityToMagnitude(int intensity) {
             return image;
         }
         
-        BufferedImage resized = new BufferedImage(newWidth, newHeight, image.getType());
-        java.awt.Graphics2D g = resized.createGraphics();
-        g.drawImage(image, 0, 0, newWidth, newHeight, null);
-        g.dispose();
-        
-        return resized;
+        return Resampler.resize(image, newWidth, newHeight, Resampler.Kernel.BICUBIC);
     }
     
     private static int nextPowerOfTwo(int n) {
@@ -586,72 +581,68 @@ private static double intensityToMagnitude(int intensity) {
         // Ensure spectrum is grayscale
         BufferedImage graySpectrum = isGrayscale(spectrum) ? spectrum : convertToGrayscale(spectrum);
         
-        // Step 1: Apply Laplacian to detect edges (noise patterns in spectrum)
-        BufferedImage laplacianEdges = applyLaplacianToSpectrum(graySpectrum);
-        
-        // Step 2: Subtract the edges from original spectrum to reduce noise
-        BufferedImage denoised = subtractEdgesFromSpectrum(graySpectrum, laplacianEdges, subtractionStrength);
+        int width = graySpectrum.getWidth();
+        int height = graySpectrum.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
         
-        return denoised;
-    }
-
-    private static BufferedImage applyLaplacianToSpectrum(BufferedImage spectrum) {
-        int width = spectrum.getWidth();
-        int height = spectrum.getHeight();
-        BufferedImage laplacian = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        
-        // Use 8-connected Laplacian kernel for better edge detection
-        double[][] laplacianKernel = {
-            {-1, -1, -1},
-            {-1,  8, -1},
-            {-1, -1, -1}
-        };
-        
-        for (int y = 1; y < height - 1; y++) {
-            for (int x = 1; x < width - 1; x++) {
-                double sum = 0;
+        // Edges are an intermediate gray image, so they pass through the same gray conversions;
+        // border pixels have no Laplacian and keep edge value 0
+        int[] edgeIntensity = new int[256];
+        for (int edge = 0; edge < 256; edge++) {
+            edgeIntensity[edge] = SAMPLE_TO_GRAY[GRAY_TO_SAMPLE[edge]];
+        }
+        int borderEdge = SAMPLE_TO_GRAY[0];
+        
+        // One pass per row band: 8-connected Laplacian from a rolling three-row window,
+        // then spectrum - strength x edges, with no intermediate image
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] above = new int[width];
+            int[] current = new int[width];
+            int[] below = new int[width];
+            int[] output = new int[width];
+            if (start > 0) {
+                readIntensities(graySpectrum, start - 1, above);
+            }
+            readIntensities(graySpectrum, start, current);
+            
+            for (int y = start; y < end; y++) {
+                boolean interiorRow = y > 0 && y < height - 1;
+                if (y < height - 1) {
+                    readIntensities(graySpectrum, y + 1, below);
+                }
                 
-                for (int ky = -1; ky <= 1; ky++) {
-                    for (int kx = -1; kx <= 1; kx++) {
-                        int pixelX = x + kx;
-                        int pixelY = y + ky;
-                        int intensity = new Color(spectrum.getRGB(pixelX, pixelY)).getRed();
-                        sum += intensity * laplacianKernel[ky + 1][kx + 1];
+                for (int x = 0; x < width; x++) {
+                    int edge = borderEdge;
+                    if (interiorRow && x > 0 && x < width - 1) {
+                        int neighbors = above[x - 1] + above[x] + above[x + 1]
+                                + current[x - 1] + current[x + 1]
+                                + below[x - 1] + below[x] + below[x + 1];
+                        int sum = 8 * current[x] - neighbors;
+                        edge = edgeIntensity[Math.min(255, Math.abs(sum))];
                     }
+                    
+                    // Subtract edges from spectrum: spectrum - strength × edges
+                    int denoisedValue = (int) (current[x] - subtractionStrength * edge);
+                    denoisedValue = Math.min(255, Math.max(0, denoisedValue));
+                    output[x] = GRAY_TO_SAMPLE[denoisedValue];
                 }
+                result.getRaster().setSamples(0, y, width, 1, 0, output);
                 
-                // Take absolute value and normalize
-                int edgeValue = (int) Math.abs(sum);
-                edgeValue = Math.min(255, edgeValue);
-                
-                Color gray = new Color(edgeValue, edgeValue, edgeValue);
-                laplacian.setRGB(x, y, gray.getRGB());
+                int[] recycled = above;
+                above = current;
+                current = below;
+                below = recycled;
             }
-        }
+        });
         
-        return laplacian;
+        return result;
     }
-
-    private static BufferedImage subtractEdgesFromSpectrum(BufferedImage spectrum, BufferedImage edges, double strength) {
-        int width = spectrum.getWidth();
-        int height = spectrum.getHeight();
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int spectrumIntensity = new Color(spectrum.getRGB(x, y)).getRed();
-                int edgeIntensity = new Color(edges.getRGB(x, y)).getRed();
-                
-                // Subtract edges from spectrum: spectrum - strength × edges
-                // This removes high-frequency noise patterns detected by Laplacian
-                int denoisedValue = (int) (spectrumIntensity - strength * edgeIntensity);
-                denoisedValue = Math.min(255, Math.max(0, denoisedValue));
-                
-                Color gray = new Color(denoisedValue, denoisedValue, denoisedValue);
-                result.setRGB(x, y, gray.getRGB());
-            }
+    
+    // Gray intensities of a row as getRGB() reports them (red channel of the sRGB value)
+    private static void readIntensities(BufferedImage grayImage, int y, int[] row) {
+        grayImage.getRaster().getSamples(0, y, row.length, 1, 0, row);
+        for (int x = 0; x < row.length; x++) {
+            row[x] = SAMPLE_TO_GRAY[row[x]];
         }
-        
-        return result;
     }
 }
\ No newline at end of file
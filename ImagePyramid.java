@@ -0,0 +1,189 @@
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-resolution pyramid of an image: level 0 is the image itself and every following
+ * level is filtered and reduced 2x from the previous one. The reduced levels are cached per
+ * image (by identity, through weak references, so the cache never keeps an image alive) and
+ * evicted least-recently-used once the cache exceeds its memory budget.
+ *
+ * Cached levels are derived from the image as it was when they were built, so images passed
+ * here must not be modified in place afterwards; call invalidate() if one is.
+ */
+public class ImagePyramid {
+    private static final Resampler.Kernel REDUCE_KERNEL = Resampler.Kernel.BICUBIC;
+    private static long cacheLimitBytes = 256L * 1024 * 1024;
+    private static long cachedBytes = 0;
+    private static final Map<IdentityKey, Levels> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    // Keys whose image has been garbage collected
+    private static final ReferenceQueue<BufferedImage> COLLECTED = new ReferenceQueue<>();
+
+    private final BufferedImage image;
+    private final Levels levels;
+
+    private ImagePyramid(BufferedImage image, Levels levels) {
+        this.image = image;
+        this.levels = levels;
+    }
+
+    /**
+     * Returns the pyramid of an image, reusing cached levels from earlier calls
+     */
+    public static ImagePyramid of(BufferedImage image) {
+        synchronized (CACHE) {
+            expungeCollected();
+            IdentityKey key = new IdentityKey(image, COLLECTED);
+            Levels levels = CACHE.get(key);
+            if (levels == null) {
+                levels = new Levels();
+                CACHE.put(key, levels);
+            }
+            return new ImagePyramid(image, levels);
+        }
+    }
+
+    public static void invalidate(BufferedImage image) {
+        synchronized (CACHE) {
+            Levels removed = CACHE.remove(new IdentityKey(image, null));
+            if (removed != null) {
+                cachedBytes -= removed.bytes;
+            }
+        }
+    }
+
+    public static void setCacheLimit(long bytes) {
+        synchronized (CACHE) {
+            cacheLimitBytes = bytes;
+            evictOverLimit(null);
+        }
+    }
+
+    /**
+     * Level i of the pyramid (level 0 is the original), built on demand.
+     * The returned image is shared with the cache and must not be modified.
+     */
+    public BufferedImage getLevel(int level) {
+        synchronized (levels) {
+            if (level == 0) {
+                return image;
+            }
+            while (levels.reduced.size() < level) {
+                BufferedImage previous = levels.reduced.isEmpty()
+                        ? image : levels.reduced.get(levels.reduced.size() - 1);
+                if (previous.getWidth() == 1 && previous.getHeight() == 1) {
+                    break;
+                }
+                BufferedImage reduced = Resampler.resize(previous,
+                        Math.max(1, previous.getWidth() / 2),
+                        Math.max(1, previous.getHeight() / 2),
+                        REDUCE_KERNEL);
+                levels.reduced.add(reduced);
+                addBytes(levels, estimateBytes(reduced));
+            }
+            return levels.reduced.isEmpty() ? image : levels.reduced.get(Math.min(level, levels.reduced.size()) - 1);
+        }
+    }
+
+    /**
+     * Resizes the image to the requested dimensions, starting from the smallest
+     * pyramid level that is still at least as large as the target.
+     * Always returns a new image that the caller may modify.
+     */
+    public BufferedImage resize(int targetWidth, int targetHeight, Resampler.Kernel kernel) {
+        int level = 0;
+        BufferedImage source = image;
+        // Only build the next level when it is still large enough to be used
+        while ((source.getWidth() > 1 || source.getHeight() > 1)
+                && Math.max(1, source.getWidth() / 2) >= targetWidth
+                && Math.max(1, source.getHeight() / 2) >= targetHeight) {
+            level++;
+            source = getLevel(level);
+        }
+
+        if (source.getWidth() == targetWidth && source.getHeight() == targetHeight) {
+            return copy(source);
+        }
+        return Resampler.resize(source, targetWidth, targetHeight, kernel);
+    }
+
+    private static void addBytes(Levels levels, long levelBytes) {
+        synchronized (CACHE) {
+            levels.bytes += levelBytes;
+            if (CACHE.containsValue(levels)) {
+                cachedBytes += levelBytes;
+                evictOverLimit(levels);
+            }
+        }
+    }
+
+    private static void expungeCollected() {
+        Object collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            Levels removed = CACHE.remove(collected);
+            if (removed != null) {
+                cachedBytes -= removed.bytes;
+            }
+        }
+    }
+
+    // Drops least-recently-used pyramids until the budget is met, keeping the one in use
+    private static void evictOverLimit(Levels keep) {
+        Iterator<Levels> it = CACHE.values().iterator();
+        while (cachedBytes > cacheLimitBytes && it.hasNext()) {
+            Levels candidate = it.next();
+            if (candidate != keep) {
+                it.remove();
+                cachedBytes -= candidate.bytes;
+            }
+        }
+    }
+
+    private static long estimateBytes(BufferedImage image) {
+        int bitsPerPixel = image.getColorModel().getPixelSize();
+        return (long) image.getWidth() * image.getHeight() * Math.max(1, (bitsPerPixel + 7) / 8);
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        return new BufferedImage(image.getColorModel(), image.copyData(null),
+                image.isAlphaPremultiplied(), null);
+    }
+
+    // Reduced levels 1..n of one image; level 0 stays with the caller's pyramid
+    private static class Levels {
+        private final List<BufferedImage> reduced = new ArrayList<>();
+        private long bytes;
+    }
+
+    // Weak cache key that compares images by reference rather than by content
+    private static class IdentityKey extends WeakReference<BufferedImage> {
+        private final int hash;
+
+        IdentityKey(BufferedImage image, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.hash = System.identityHashCode(image);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof IdentityKey)) {
+                return false;
+            }
+            BufferedImage image = get();
+            return image != null && image == ((IdentityKey) other).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
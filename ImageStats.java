@@ -0,0 +1,227 @@
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statistics accumulator for 8-bit grayscale data: histogram, count, sum, sum of squares,
+ * min and max. Partial results from bands or tiles merge associatively, and the derived
+ * metrics (median, mode, entropy, contrast, SNR, PSNR) are computed lazily from them.
+ */
+public class ImageStats {
+    private static final int BINS = 256;
+
+    private final int[] histogram = new int[BINS];
+    private long count;
+    private long sum;
+    private long sumSquared;
+    private int min = BINS - 1;
+    private int max = 0;
+
+    // Derived metrics, cleared whenever data is added
+    private Integer median;
+    private Integer mode;
+    private Double entropy;
+
+    public ImageStats() {
+    }
+
+    /**
+     * Statistics of an 8-bit grayscale image from one parallel histogram pass.
+     * Deeper images (e.g. 16-bit) are rejected rather than binned down.
+     */
+    public static ImageStats of(BufferedImage grayscaleImage) {
+        if (grayscaleImage.getSampleModel().getSampleSize(0) > 8) {
+            throw new IllegalArgumentException("Image statistics need 8-bit samples");
+        }
+        return fromHistogram(ParallelHistogram.of(grayscaleImage));
+    }
+
+    /**
+     * Statistics of data whose 256-bin histogram is already known
+     */
+    public static ImageStats fromHistogram(int[] histogram) {
+        if (histogram.length != BINS) {
+            throw new IllegalArgumentException("Histogram must have 256 bins");
+        }
+        ImageStats stats = new ImageStats();
+        for (int gray = 0; gray < BINS; gray++) {
+            stats.add(gray, histogram[gray]);
+        }
+        return stats;
+    }
+
+    public void add(int gray) {
+        add(gray, 1);
+    }
+
+    /**
+     * Adds n occurrences of a gray value
+     */
+    public void add(int gray, int n) {
+        if (n == 0) {
+            return;
+        }
+        histogram[gray] += n;
+        count += n;
+        sum += (long) n * gray;
+        sumSquared += (long) n * gray * gray;
+        min = Math.min(min, gray);
+        max = Math.max(max, gray);
+        clearDerived();
+    }
+
+    /**
+     * Adds the data of another accumulator to this one and returns this
+     */
+    public ImageStats merge(ImageStats other) {
+        for (int i = 0; i < BINS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        sumSquared += other.sumSquared;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        clearDerived();
+        return this;
+    }
+
+    private void clearDerived() {
+        median = null;
+        mode = null;
+        entropy = null;
+    }
+
+    public int[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getSumSquared() {
+        return sumSquared;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public int getDynamicRange() {
+        return max - min;
+    }
+
+    public double getMean() {
+        return (double) sum / count;
+    }
+
+    public double getVariance() {
+        double mean = getMean();
+        return ((double) sumSquared / count) - (mean * mean);
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(Math.max(0, getVariance()));
+    }
+
+    public int getMedian() {
+        if (median == null) {
+            long seen = 0;
+            int value = 0;
+            for (int i = 0; i < BINS; i++) {
+                seen += histogram[i];
+                if (seen >= count / 2) {
+                    value = i;
+                    break;
+                }
+            }
+            median = value;
+        }
+        return median;
+    }
+
+    public int getMode() {
+        if (mode == null) {
+            int value = 0;
+            int maxCount = 0;
+            for (int i = 0; i < BINS; i++) {
+                if (histogram[i] > maxCount) {
+                    maxCount = histogram[i];
+                    value = i;
+                }
+            }
+            mode = value;
+        }
+        return mode;
+    }
+
+    public double getEntropy() {
+        if (entropy == null) {
+            double value = 0;
+            for (int i = 0; i < BINS; i++) {
+                if (histogram[i] > 0) {
+                    double probability = (double) histogram[i] / count;
+                    value -= probability * (Math.log(probability) / Math.log(2));
+                }
+            }
+            entropy = value;
+        }
+        return entropy;
+    }
+
+    /**
+     * Root mean square intensity scaled to [0, 1] (a simple measure of histogram spread)
+     */
+    public double getContrast() {
+        return Math.sqrt((double) sumSquared / count) / 255.0;
+    }
+
+    public double getSNR() {
+        double stdDev = getStdDev();
+        return (stdDev > 0) ? getMean() / stdDev : Double.MAX_VALUE;
+    }
+
+    /**
+     * Theoretical maximum PSNR for the brightest value present
+     */
+    public double getPSNR() {
+        return 20 * Math.log10(max);
+    }
+
+    /**
+     * Same keys and value types as ImageProcessing2.getImageStatistics
+     */
+    public Map<String, Object> toMap(int width, int height) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("width", width);
+        stats.put("height", height);
+        stats.put("totalPixels", width * height);
+        stats.put("aspectRatio", (double) width / height);
+
+        stats.put("histogram", getHistogram());
+        stats.put("minIntensity", min);
+        stats.put("maxIntensity", max);
+        stats.put("meanIntensity", getMean());
+        stats.put("variance", getVariance());
+        stats.put("stdDev", getStdDev());
+        stats.put("dynamicRange", getDynamicRange());
+
+        stats.put("medianIntensity", getMedian());
+        stats.put("modeIntensity", getMode());
+        stats.put("entropy", getEntropy());
+        stats.put("contrast", getContrast());
+
+        stats.put("snr", getSNR()); // Signal-to-Noise Ratio
+        stats.put("psnr", getPSNR()); // Peak Signal-to-Noise Ratio (theoretical max)
+        return stats;
+    }
+}
@@ -0,0 +1,112 @@
+import java.awt.image.BufferedImage;
+
+/**
+ * Summed-area tables of an 8-bit grayscale image (sum and sum of squares).
+ * After one linear pass, the mean and standard deviation of any rectangular window
+ * come from four lookups each. Windows are clipped to the image, and the pixel count
+ * reflects the clipped area, matching the per-pixel loops in ImageProcessing2.
+ */
+public class IntegralImage {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final long[] sum;
+    private final long[] sumSquared;
+
+    public IntegralImage(BufferedImage grayscaleImage) {
+        this(grayscaleImage.getRaster().getSamples(0, 0, grayscaleImage.getWidth(),
+                grayscaleImage.getHeight(), 0, (int[]) null),
+             grayscaleImage.getWidth(), grayscaleImage.getHeight());
+    }
+
+    public IntegralImage(int[] pixels, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        this.sum = new long[stride * (height + 1)];
+        this.sumSquared = new long[stride * (height + 1)];
+
+        // Row prefix sums, then column prefix sums; both passes are independent per row/column
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                long rowSum = 0;
+                long rowSumSquared = 0;
+                int offset = (y + 1) * stride;
+                for (int x = 0; x < width; x++) {
+                    long gray = pixels[y * width + x];
+                    rowSum += gray;
+                    rowSumSquared += gray * gray;
+                    sum[offset + x + 1] = rowSum;
+                    sumSquared[offset + x + 1] = rowSumSquared;
+                }
+            }
+        });
+        ParallelBands.forEach(width, 64, (start, end) -> {
+            for (int y = 2; y <= height; y++) {
+                int offset = y * stride;
+                for (int x = start + 1; x <= end; x++) {
+                    sum[offset + x] += sum[offset - stride + x];
+                    sumSquared[offset + x] += sumSquared[offset - stride + x];
+                }
+            }
+        });
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sum over the window [x0, x1) x [y0, y1)
+     */
+    public long sum(int x0, int y0, int x1, int y1) {
+        return boxSum(sum, x0, y0, x1, y1);
+    }
+
+    public long sumSquared(int x0, int y0, int x1, int y1) {
+        return boxSum(sumSquared, x0, y0, x1, y1);
+    }
+
+    /**
+     * Mean and standard deviation of the (2*halfSize+1)^2 window around a pixel,
+     * clipped to the image; writes {mean, stdDev} into out
+     */
+    public void localStatistics(int centerX, int centerY, int halfSize, double[] out) {
+        int x0 = Math.max(0, centerX - halfSize);
+        int y0 = Math.max(0, centerY - halfSize);
+        int x1 = Math.min(width, centerX + halfSize + 1);
+        int y1 = Math.min(height, centerY + halfSize + 1);
+        int count = (x1 - x0) * (y1 - y0);
+        if (count <= 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+
+        double mean = (double) boxSum(sum, x0, y0, x1, y1) / count;
+        double variance = ((double) boxSum(sumSquared, x0, y0, x1, y1) / count) - (mean * mean);
+        out[0] = mean;
+        out[1] = Math.sqrt(Math.max(0, variance));
+    }
+
+    /**
+     * Mean of the (2*halfSize+1)^2 window around a pixel, clipped to the image
+     */
+    public double localMean(int centerX, int centerY, int halfSize) {
+        int x0 = Math.max(0, centerX - halfSize);
+        int y0 = Math.max(0, centerY - halfSize);
+        int x1 = Math.min(width, centerX + halfSize + 1);
+        int y1 = Math.min(height, centerY + halfSize + 1);
+        int count = (x1 - x0) * (y1 - y0);
+        return count > 0 ? (double) boxSum(sum, x0, y0, x1, y1) / count : 0;
+    }
+
+    private long boxSum(long[] table, int x0, int y0, int x1, int y1) {
+        return table[y1 * stride + x1] - table[y0 * stride + x1]
+                - table[y1 * stride + x0] + table[y0 * stride + x0];
+    }
+}
@@ -0,0 +1,101 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Checks that the fused ImageProcessing3.denoiseSpectrumWithLaplacian is byte-identical to the
+ * original two-pass version (Laplacian image, then subtraction through getRGB/setRGB), which is
+ * kept below as the reference. Gray and color inputs, degenerate sizes and several strengths are
+ * covered, with the common pool forced to 4 workers so the row bands really split.
+ * Run with: java LaplacianDenoiseCheck, or java Checks for every check.
+ */
+public class LaplacianDenoiseCheck {
+
+    public static void main(String[] args) {
+        Checks.main("Laplacian denoise", LaplacianDenoiseCheck::run);
+    }
+
+    static void run(Checks checks) {
+        Random random = new Random(42);
+        int[][] sizes = {{1, 1}, {2, 2}, {3, 3}, {1, 9}, {9, 1}, {257, 131}};
+        double[] strengths = {0, 0.3, 1.0, 2.5};
+
+        for (int[] size : sizes) {
+            for (boolean color : new boolean[]{false, true}) {
+                BufferedImage spectrum = randomImage(random, size[0], size[1], color);
+                for (double strength : strengths) {
+                    BufferedImage expected = referenceDenoise(spectrum, strength);
+                    BufferedImage actual = ImageProcessing3.denoiseSpectrumWithLaplacian(spectrum, strength);
+                    int mismatches = 0;
+                    for (int y = 0; y < size[1]; y++) {
+                        for (int x = 0; x < size[0]; x++) {
+                            if (actual.getRaster().getSample(x, y, 0) != expected.getRaster().getSample(x, y, 0)) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                    checks.expect(mismatches == 0, size[0] + "x" + size[1] + (color ? " color" : " gray")
+                            + " strength " + strength + ": " + mismatches + " pixels differ");
+                }
+            }
+        }
+    }
+
+    private static BufferedImage randomImage(Random random, int width, int height, boolean color) {
+        BufferedImage image = new BufferedImage(width, height,
+                color ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (color) {
+                    image.setRGB(x, y, random.nextInt(1 << 24));
+                } else {
+                    image.getRaster().setSample(x, y, 0, random.nextInt(256));
+                }
+            }
+        }
+        return image;
+    }
+
+    // The original implementation, unchanged apart from being inlined here
+    private static BufferedImage referenceDenoise(BufferedImage spectrum, double subtractionStrength) {
+        BufferedImage graySpectrum = ImageProcessing3.isGrayscale(spectrum)
+                ? spectrum : ImageProcessing3.convertToGrayscale(spectrum);
+        int width = graySpectrum.getWidth();
+        int height = graySpectrum.getHeight();
+
+        BufferedImage laplacian = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        double[][] laplacianKernel = {
+            {-1, -1, -1},
+            {-1,  8, -1},
+            {-1, -1, -1}
+        };
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                double sum = 0;
+                for (int ky = -1; ky <= 1; ky++) {
+                    for (int kx = -1; kx <= 1; kx++) {
+                        int intensity = new Color(graySpectrum.getRGB(x + kx, y + ky)).getRed();
+                        sum += intensity * laplacianKernel[ky + 1][kx + 1];
+                    }
+                }
+                int edgeValue = (int) Math.abs(sum);
+                edgeValue = Math.min(255, edgeValue);
+                Color gray = new Color(edgeValue, edgeValue, edgeValue);
+                laplacian.setRGB(x, y, gray.getRGB());
+            }
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int spectrumIntensity = new Color(graySpectrum.getRGB(x, y)).getRed();
+                int edgeIntensity = new Color(laplacian.getRGB(x, y)).getRed();
+                int denoisedValue = (int) (spectrumIntensity - subtractionStrength * edgeIntensity);
+                denoisedValue = Math.min(255, Math.max(0, denoisedValue));
+                Color gray = new Color(denoisedValue, denoisedValue, denoisedValue);
+                result.setRGB(x, y, gray.getRGB());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Evaluates many (k0, k1, k2) combinations of local histogram enhancement without rendering
+ * any image. Local mean, local standard deviation and the locally equalized value do not depend
+ * on k, so they are computed once per pixel. Each pixel then only decides which combinations
+ * switch it from its original to its equalized value: that is a corner of the sorted (k0, k1, k2)
+ * grid, so it is recorded once in a per-cell delta histogram, and a 3-D prefix sum yields the
+ * output histogram of every combination.
+ */
+public class LocalHistogramSweep {
+    private static final int BINS = 256;
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final int halfSize;
+    private final IntegralImage integral;
+    private final int[] equalized;
+    private final double globalMean;
+    private final double globalStdDev;
+
+    public LocalHistogramSweep(int[] pixels, int width, int height, int halfSize, IntegralImage integral,
+                               int[] equalized, double globalMean, double globalStdDev) {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.halfSize = halfSize;
+        this.integral = integral;
+        this.equalized = equalized;
+        this.globalMean = globalMean;
+        this.globalStdDev = globalStdDev;
+    }
+
+    /**
+     * Scores every combination; result[(i * k1Values.length + j) * k2Values.length + l]
+     * is the score of the output histogram for (k0Values[i], k1Values[j], k2Values[l]).
+     * Only combinations {k0, k1, k2} accepted by the constraint are scored (e.g. k2 > k1); the
+     * others get NaN. Combinations are scored in parallel.
+     */
+    public double[] scoreAll(double[] k0Values, double[] k1Values, double[] k2Values,
+                             Predicate<double[]> constraint, ToDoubleFunction<int[]> scorer) {
+        int n0 = k0Values.length;
+        int n1 = k1Values.length;
+        int n2 = k2Values.length;
+        double[] k0Sorted = sorted(k0Values);
+        double[] k1Sorted = sorted(k1Values);
+        double[] k2Sorted = sorted(k2Values);
+
+        // Sorted-grid cell of every pixel (-1: never enhanced for any combination)
+        int[] cells = new int[width * height];
+        ParallelBands.forEach(height, (start, end) -> {
+            double[] localStats = new double[2];
+            for (int y = start; y < end; y++) {
+                for (int x = 0; x < width; x++) {
+                    integral.localStatistics(x, y, halfSize, localStats);
+                    double localMean = localStats[0];
+                    double localStdDev = localStats[1];
+
+                    // Enhanced for k0 positions >= a, k1 positions <= b and k2 positions >= c
+                    int a = firstAtLeast(k0Sorted, localMean, globalMean);
+                    int b = lastAtMost(k1Sorted, localStdDev, globalStdDev);
+                    int c = firstAtLeast(k2Sorted, localStdDev, globalStdDev);
+                    cells[y * width + x] = (a < n0 && b >= 0 && c < n2) ? (a * n1 + b) * n2 + c : -1;
+                }
+            }
+        });
+
+        int[] base = new int[BINS];
+        int[] delta = new int[n0 * n1 * n2 * BINS];
+        for (int i = 0; i < cells.length; i++) {
+            int gray = pixels[i];
+            base[gray]++;
+            int cell = cells[i];
+            if (cell >= 0 && equalized[i] != gray) {
+                delta[cell * BINS + equalized[i]]++;
+                delta[cell * BINS + gray]--;
+            }
+        }
+
+        // Prefix sums: ascending over k0 and k2, descending over k1
+        for (int a = 1; a < n0; a++) {
+            for (int rest = 0; rest < n1 * n2; rest++) {
+                accumulate(delta, (a * n1 * n2 + rest) * BINS, ((a - 1) * n1 * n2 + rest) * BINS);
+            }
+        }
+        for (int a = 0; a < n0; a++) {
+            for (int b = n1 - 2; b >= 0; b--) {
+                for (int c = 0; c < n2; c++) {
+                    accumulate(delta, ((a * n1 + b) * n2 + c) * BINS, ((a * n1 + b + 1) * n2 + c) * BINS);
+                }
+            }
+        }
+        for (int a = 0; a < n0; a++) {
+            for (int b = 0; b < n1; b++) {
+                for (int c = 1; c < n2; c++) {
+                    accumulate(delta, ((a * n1 + b) * n2 + c) * BINS, ((a * n1 + b) * n2 + c - 1) * BINS);
+                }
+            }
+        }
+
+        int[] pos0 = positions(k0Values, k0Sorted);
+        int[] pos1 = positions(k1Values, k1Sorted);
+        int[] pos2 = positions(k2Values, k2Sorted);
+        double[] scores = new double[n0 * n1 * n2];
+        ParallelBands.forEach(scores.length, 1, (start, end) -> {
+            int[] histogram = new int[BINS];
+            for (int index = start; index < end; index++) {
+                int i = index / (n1 * n2);
+                int j = (index / n2) % n1;
+                int l = index % n2;
+                if (!constraint.test(new double[]{k0Values[i], k1Values[j], k2Values[l]})) {
+                    scores[index] = Double.NaN;
+                    continue;
+                }
+                int cell = (pos0[i] * n1 + pos1[j]) * n2 + pos2[l];
+                for (int v = 0; v < BINS; v++) {
+                    histogram[v] = base[v] + delta[cell * BINS + v];
+                }
+                scores[index] = scorer.applyAsDouble(histogram);
+            }
+        });
+        return scores;
+    }
+
+    private static void accumulate(int[] data, int target, int source) {
+        for (int v = 0; v < BINS; v++) {
+            data[target + v] += data[source + v];
+        }
+    }
+
+    // First sorted position p with value <= k[p] * scale (k * scale is non-decreasing for scale >= 0)
+    private static int firstAtLeast(double[] k, double value, double scale) {
+        int low = 0;
+        int high = k.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (value <= k[mid] * scale) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // Last sorted position p with value >= k[p] * scale, or -1
+    private static int lastAtMost(double[] k, double value, double scale) {
+        int low = 0;
+        int high = k.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (value >= k[mid] * scale) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    private static double[] sorted(double[] values) {
+        double[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    // Position of each original value in the sorted array (any position among equal values works)
+    private static int[] positions(double[] values, double[] sorted) {
+        int[] positions = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            positions[i] = Arrays.binarySearch(sorted, values[i]);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,155 @@
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Constant-time median filter for 8-bit data (Perreault and Hebert, 2007). Every column keeps
+ * a histogram of the rows in the current window; the kernel histogram slides along the row by
+ * adding the entering column and removing the leaving one. Histograms have two levels
+ * (16 coarse x 16 fine bins): the coarse level is kept current, and the fine bins of a coarse
+ * block are only brought up to date when the median search enters that block. The cost per
+ * pixel therefore does not grow with the radius.
+ *
+ * Borders replicate the edge pixels (like OpenCV's medianBlur). The image is split into
+ * vertical strips that are filtered in parallel.
+ */
+public class MedianFilter {
+    private static final int BINS = 256;
+    private static final int COARSE = 16;
+    private static final int MIN_STRIP_COLUMNS = 64;
+
+    /**
+     * Median over a kernelSize x kernelSize window (kernelSize must be odd)
+     */
+    public static BufferedImage apply(BufferedImage grayscaleImage, int kernelSize) {
+        if (grayscaleImage.getRaster().getNumBands() != 1
+                || grayscaleImage.getSampleModel().getSampleSize(0) != 8) {
+            throw new IllegalArgumentException("Image must be 8-bit grayscale");
+        }
+        if (kernelSize <= 0 || kernelSize % 2 == 0) {
+            throw new IllegalArgumentException("Kernel size must be a positive odd number");
+        }
+        int width = grayscaleImage.getWidth();
+        int height = grayscaleImage.getHeight();
+        int[] pixels = grayscaleImage.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int[] filtered = apply(pixels, width, height, kernelSize / 2);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        result.getRaster().setSamples(0, 0, width, height, 0, filtered);
+        return result;
+    }
+
+    /**
+     * Median over the (2*radius+1)^2 window of every pixel of an 8-bit plane
+     */
+    public static int[] apply(int[] pixels, int width, int height, int radius) {
+        int[] result = new int[width * height];
+        int diameter = 2 * radius + 1;
+        int rank = diameter * diameter / 2;
+
+        ParallelBands.forEach(width, MIN_STRIP_COLUMNS, (start, end) -> {
+            // Column histograms for every real column the strip's windows can reach
+            int firstColumn = Math.max(0, start - radius);
+            int lastColumn = Math.min(width - 1, end - 1 + radius);
+            int columns = lastColumn - firstColumn + 1;
+            int[] columnFine = new int[columns * BINS];
+            int[] columnCoarse = new int[columns * COARSE];
+            int[] fine = new int[BINS];
+            int[] coarse = new int[COARSE];
+            int[] lastUpdate = new int[COARSE];
+
+            // Window rows of the first output row, with the top row replicated
+            for (int i = -radius; i <= radius; i++) {
+                updateColumns(pixels, width, clamp(i, height), firstColumn, columns, columnFine, columnCoarse, 1);
+            }
+
+            for (int y = 0; y < height; y++) {
+                if (y > 0) {
+                    updateColumns(pixels, width, clamp(y - radius - 1, height), firstColumn, columns,
+                            columnFine, columnCoarse, -1);
+                    updateColumns(pixels, width, clamp(y + radius, height), firstColumn, columns,
+                            columnFine, columnCoarse, 1);
+                }
+
+                // Coarse kernel histogram for the first pixel; fine blocks start out stale
+                Arrays.fill(coarse, 0);
+                for (int x = start - radius; x <= start + radius; x++) {
+                    int column = clamp(x, width) - firstColumn;
+                    for (int c = 0; c < COARSE; c++) {
+                        coarse[c] += columnCoarse[column * COARSE + c];
+                    }
+                }
+                Arrays.fill(lastUpdate, Integer.MIN_VALUE);
+
+                for (int x = start; x < end; x++) {
+                    if (x > start) {
+                        int leaving = clamp(x - radius - 1, width) - firstColumn;
+                        int entering = clamp(x + radius, width) - firstColumn;
+                        for (int c = 0; c < COARSE; c++) {
+                            coarse[c] += columnCoarse[entering * COARSE + c] - columnCoarse[leaving * COARSE + c];
+                        }
+                    }
+
+                    // Coarse block holding the median, then the fine bin within it
+                    int c = 0;
+                    int seen = 0;
+                    while (seen + coarse[c] <= rank) {
+                        seen += coarse[c];
+                        c++;
+                    }
+                    refreshBlock(c, x, radius, width, firstColumn, columnFine, fine, lastUpdate);
+                    int bin = c * COARSE;
+                    while (seen + fine[bin] <= rank) {
+                        seen += fine[bin];
+                        bin++;
+                    }
+                    result[y * width + x] = bin;
+                }
+            }
+        });
+        return result;
+    }
+
+    // Brings the fine bins of one coarse block up to the window centered at x
+    private static void refreshBlock(int block, int x, int radius, int width, int firstColumn,
+                                     int[] columnFine, int[] fine, int[] lastUpdate) {
+        int base = block * COARSE;
+        int last = lastUpdate[block];
+        if (last == x) {
+            return;
+        }
+        if (last == Integer.MIN_VALUE || x - last > 2 * radius + 1) {
+            // Rebuild from the window's columns
+            Arrays.fill(fine, base, base + COARSE, 0);
+            for (int i = x - radius; i <= x + radius; i++) {
+                int offset = (clamp(i, width) - firstColumn) * BINS;
+                for (int bin = base; bin < base + COARSE; bin++) {
+                    fine[bin] += columnFine[offset + bin];
+                }
+            }
+        } else {
+            // Slide over the columns skipped since the last update
+            for (int position = last + 1; position <= x; position++) {
+                int leaving = (clamp(position - radius - 1, width) - firstColumn) * BINS;
+                int entering = (clamp(position + radius, width) - firstColumn) * BINS;
+                for (int bin = base; bin < base + COARSE; bin++) {
+                    fine[bin] += columnFine[entering + bin] - columnFine[leaving + bin];
+                }
+            }
+        }
+        lastUpdate[block] = x;
+    }
+
+    private static void updateColumns(int[] pixels, int width, int y, int firstColumn, int columns,
+                                      int[] columnFine, int[] columnCoarse, int delta) {
+        int offset = y * width + firstColumn;
+        for (int i = 0; i < columns; i++) {
+            int gray = pixels[offset + i];
+            columnFine[i * BINS + gray] += delta;
+            columnCoarse[i * COARSE + (gray >> 4)] += delta;
+        }
+    }
+
+    private static int clamp(int i, int length) {
+        return i < 0 ? 0 : (i >= length ? length - 1 : i);
+    }
+}
@@ -0,0 +1,242 @@
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grayscale morphology (erode, dilate, open, close) with the van Herk / Gil-Werman running
+ * min/max: each 1-D pass splits the line into blocks of the window length and combines a
+ * forward and a backward running extremum, about three comparisons per pixel whatever the
+ * window length. Structuring elements are sequences of line segments: a rectangle is a
+ * horizontal then a vertical line, and a disk is approximated by an octagon made of
+ * horizontal, vertical and both diagonal lines. Lines of one direction are processed in parallel.
+ * MorphologyCheck compares every operation with a direct min/max over the element.
+ *
+ * Pixels outside the image never win (like OpenCV's default morphology border), and binary
+ * masks (0/255) work unchanged.
+ */
+public class Morphology {
+
+    /**
+     * Structuring element given as line segments applied one after the other
+     */
+    public static class Element {
+        // {dx, dy, length}; the anchor of a segment of length L is at L / 2
+        private final List<int[]> segments = new ArrayList<>();
+
+        private Element() {
+        }
+
+        /**
+         * Rectangle of width x height pixels, anchored at its center
+         */
+        public static Element rectangle(int width, int height) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Rectangle size must be positive");
+            }
+            Element element = new Element();
+            element.addSegment(1, 0, width);
+            element.addSegment(0, 1, height);
+            return element;
+        }
+
+        /**
+         * Octagon approximating a disk of the given radius (diameter 2 * radius + 1)
+         */
+        public static Element disk(int radius) {
+            if (radius < 0) {
+                throw new IllegalArgumentException("Radius must not be negative");
+            }
+            // Square of half-size p plus a diamond of half-diagonal 2q: axis extent p + 2q,
+            // diagonal extent sqrt(2) * (p + q); both match the radius for q = r (1 - 1/sqrt(2)).
+            // Diagonal steps only reach pixels with x + y even, so the square must be at least
+            // 3x3 to fill the gaps: radius 2 becomes a 5x5 square rather than a diamond with holes
+            int q = (int) Math.round(radius * (1 - 1 / Math.sqrt(2)));
+            if (radius > 0 && radius - 2 * q < 1) {
+                q = (radius - 1) / 2;
+            }
+            int p = radius - 2 * q;
+            Element element = new Element();
+            element.addSegment(1, 0, 2 * p + 1);
+            element.addSegment(0, 1, 2 * p + 1);
+            element.addSegment(1, 1, 2 * q + 1);
+            element.addSegment(1, -1, 2 * q + 1);
+            return element;
+        }
+
+        private void addSegment(int dx, int dy, int length) {
+            if (length > 1) {
+                segments.add(new int[]{dx, dy, length});
+            }
+        }
+    }
+
+    public static BufferedImage erode(BufferedImage grayscaleImage, Element element) {
+        return applyToImage(grayscaleImage, element, false, false);
+    }
+
+    public static BufferedImage dilate(BufferedImage grayscaleImage, Element element) {
+        return applyToImage(grayscaleImage, element, true, false);
+    }
+
+    public static BufferedImage open(BufferedImage grayscaleImage, Element element) {
+        return applyToImage(grayscaleImage, element, false, true);
+    }
+
+    public static BufferedImage close(BufferedImage grayscaleImage, Element element) {
+        return applyToImage(grayscaleImage, element, true, true);
+    }
+
+    public static int[] erode(int[] pixels, int width, int height, Element element) {
+        return morph(pixels, width, height, element, false);
+    }
+
+    public static int[] dilate(int[] pixels, int width, int height, Element element) {
+        return morph(pixels, width, height, element, true);
+    }
+
+    /**
+     * Erosion followed by dilation: removes bright details smaller than the element
+     */
+    public static int[] open(int[] pixels, int width, int height, Element element) {
+        return dilate(erode(pixels, width, height, element), width, height, element);
+    }
+
+    /**
+     * Dilation followed by erosion: fills dark gaps smaller than the element
+     */
+    public static int[] close(int[] pixels, int width, int height, Element element) {
+        return erode(dilate(pixels, width, height, element), width, height, element);
+    }
+
+    private static BufferedImage applyToImage(BufferedImage grayscaleImage, Element element, boolean dilateFirst,
+                                              boolean compound) {
+        if (grayscaleImage.getRaster().getNumBands() != 1
+                || grayscaleImage.getSampleModel().getSampleSize(0) != 8) {
+            throw new IllegalArgumentException("Image must be 8-bit grayscale");
+        }
+        int width = grayscaleImage.getWidth();
+        int height = grayscaleImage.getHeight();
+        int[] pixels = grayscaleImage.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int[] result = morph(pixels, width, height, element, dilateFirst);
+        if (compound) {
+            result = morph(result, width, height, element, !dilateFirst);
+        }
+
+        BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        output.getRaster().setSamples(0, 0, width, height, 0, result);
+        return output;
+    }
+
+    private static int[] morph(int[] pixels, int width, int height, Element element, boolean max) {
+        // A diagonal pass may step outside the image on the way to a pixel inside it, so
+        // elements with diagonals run on a copy padded by their reach; rectangles need no padding
+        int reach = 0;
+        boolean diagonal = false;
+        for (int[] segment : element.segments) {
+            reach += segment[2] / 2;
+            diagonal |= segment[0] != 0 && segment[1] != 0;
+        }
+        int pad = diagonal ? reach : 0;
+        int paddedWidth = width + 2 * pad;
+        int paddedHeight = height + 2 * pad;
+        int[] current = new int[paddedWidth * paddedHeight];
+        if (pad > 0) {
+            Arrays.fill(current, max ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        }
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, y * width, current, (y + pad) * paddedWidth + pad, width);
+        }
+
+        for (int[] segment : element.segments) {
+            current = linePass(current, paddedWidth, paddedHeight, segment[0], segment[1], segment[2], max);
+        }
+        if (pad == 0) {
+            return current;
+        }
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(current, (y + pad) * paddedWidth + pad, result, y * width, width);
+        }
+        return result;
+    }
+
+    // Running min/max of the given length along every line of direction (dx, dy)
+    private static int[] linePass(int[] source, int width, int height, int dx, int dy, int length, boolean max) {
+        int[] result = new int[width * height];
+        // Lines start on the left edge (all directions but vertical) and on the top or bottom edge
+        int[] startX;
+        int[] startY;
+        if (dy == 0) {
+            startX = new int[height];
+            startY = new int[height];
+            for (int y = 0; y < height; y++) {
+                startY[y] = y;
+            }
+        } else if (dx == 0) {
+            startX = new int[width];
+            startY = new int[width];
+            for (int x = 0; x < width; x++) {
+                startX[x] = x;
+            }
+        } else {
+            startX = new int[height + width - 1];
+            startY = new int[height + width - 1];
+            for (int y = 0; y < height; y++) {
+                startY[y] = y;
+            }
+            for (int x = 1; x < width; x++) {
+                startX[height + x - 1] = x;
+                startY[height + x - 1] = dy > 0 ? 0 : height - 1;
+            }
+        }
+
+        int anchor = length / 2;
+        int identity = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int maxLine = Math.max(width, height);
+        int lines = startX.length;
+
+        ParallelBands.forEach(lines, (start, end) -> {
+            int padded = maxLine + length - 1;
+            int[] line = new int[padded + length];
+            int[] forward = new int[padded + length];
+            int[] backward = new int[padded + length];
+            int[] positions = new int[maxLine];
+            for (int l = start; l < end; l++) {
+                // Gather the line, padded with the identity so outside pixels never win
+                int n = 0;
+                for (int x = startX[l], y = startY[l]; x >= 0 && x < width && y >= 0 && y < height; x += dx, y += dy) {
+                    positions[n++] = y * width + x;
+                }
+                int total = n + length - 1;
+                // Round up to whole blocks so every block has a full backward run
+                int blocks = (total + length - 1) / length;
+                int size = blocks * length;
+                for (int i = 0; i < size; i++) {
+                    int index = i - anchor;
+                    line[i] = (index >= 0 && index < n) ? source[positions[index]] : identity;
+                }
+
+                // van Herk / Gil-Werman: running extremum forward and backward within each block
+                for (int b = 0; b < size; b += length) {
+                    forward[b] = line[b];
+                    for (int i = b + 1; i < b + length; i++) {
+                        forward[i] = max ? Math.max(forward[i - 1], line[i]) : Math.min(forward[i - 1], line[i]);
+                    }
+                    backward[b + length - 1] = line[b + length - 1];
+                    for (int i = b + length - 2; i >= b; i--) {
+                        backward[i] = max ? Math.max(backward[i + 1], line[i]) : Math.min(backward[i + 1], line[i]);
+                    }
+                }
+
+                // Window [i, i + length) spans at most two blocks
+                for (int i = 0; i < n; i++) {
+                    int a = backward[i];
+                    int c = forward[i + length - 1];
+                    result[positions[i]] = max ? Math.max(a, c) : Math.min(a, c);
+                }
+            }
+        });
+        return result;
+    }
+}
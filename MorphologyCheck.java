@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares Morphology with a direct min/max over every offset of the structuring element, for
+ * rectangles (odd, even and 1-pixel sides) and disks, on random gray images and on binary masks,
+ * including images smaller than the element. The disk footprint itself is checked first: the
+ * dilation of a single pixel must be a solid octagon of the requested radius. BinaryImage's
+ * rectangle morphology, which XrayPipeline uses, is checked against the same reference.
+ * The common pool is forced to 4 workers so the lines split.
+ * Run with: java MorphologyCheck, or java Checks for every check.
+ */
+public class MorphologyCheck {
+    public static void main(String[] args) {
+        Checks.main("morphology", MorphologyCheck::run);
+    }
+
+    static void run(Checks checks) {
+        Random random = new Random(46);
+        int[][] sizes = {{1, 1}, {1, 9}, {9, 1}, {4, 3}, {97, 83}, {200, 150}};
+        int[][] rectangles = {{1, 1}, {3, 3}, {5, 5}, {4, 2}, {1, 7}, {8, 1}, {15, 15}};
+        int maxRadius = 12;
+
+        boolean[][] disks = new boolean[maxRadius + 1][];
+        for (int r = 0; r <= maxRadius; r++) {
+            disks[r] = diskFootprint(checks, r);
+        }
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            int[] gray = new int[width * height];
+            int[] binary = new int[width * height];
+            for (int i = 0; i < gray.length; i++) {
+                gray[i] = random.nextInt(256);
+                binary[i] = random.nextInt(4) == 0 ? 0 : 255;
+            }
+            for (int[] pixels : new int[][]{gray, binary}) {
+                String prefix = width + "x" + height + (pixels == gray ? " gray" : " binary");
+                for (int[] rect : rectangles) {
+                    boolean[] footprint = new boolean[rect[0] * rect[1]];
+                    Arrays.fill(footprint, true);
+                    String shape = rect[0] + "x" + rect[1];
+                    compare(checks, pixels, width, height, Morphology.Element.rectangle(rect[0], rect[1]),
+                            footprint, rect[0], rect[1], prefix + " rectangle " + shape);
+                    if (pixels == binary) {
+                        compareBinary(checks, pixels, width, height, footprint, rect[0], rect[1],
+                                prefix + " BinaryImage " + shape);
+                    }
+                }
+                for (int r : new int[]{1, 2, 3, 5, 8}) {
+                    int diameter = 2 * r + 1;
+                    compare(checks, pixels, width, height, Morphology.Element.disk(r), disks[r], diameter, diameter,
+                            prefix + " disk " + r);
+                }
+            }
+        }
+    }
+
+    // Dilation of a single pixel by disk(r): must be the full octagon |x|, |y| <= r,
+    // |x| + |y| <= limit, with no holes and a diagonal extent close to r / sqrt(2) per axis
+    private static boolean[] diskFootprint(Checks checks, int r) {
+        int size = 2 * r + 1;
+        int pad = 2;
+        int side = size + 2 * pad;
+        int[] impulse = new int[side * side];
+        impulse[(side / 2) * side + side / 2] = 255;
+        int[] dilated = Morphology.dilate(impulse, side, side, Morphology.Element.disk(r));
+
+        int limit = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                if (dilated[y * side + x] != 0) {
+                    limit = Math.max(limit, Math.abs(x - side / 2) + Math.abs(y - side / 2));
+                }
+            }
+        }
+        // Limits are even on the lattice; radius 2 can only be a 5x5 square
+        checks.expect(Math.abs(limit - r * Math.sqrt(2)) <= 1.5, "disk " + r + " diagonal limit " + limit);
+
+        boolean[] footprint = new boolean[size * size];
+        int wrong = 0;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int dx = x - side / 2;
+                int dy = y - side / 2;
+                boolean inside = Math.abs(dx) <= r && Math.abs(dy) <= r && Math.abs(dx) + Math.abs(dy) <= limit;
+                if (inside != (dilated[y * side + x] != 0)) {
+                    wrong++;
+                }
+                if (inside) {
+                    footprint[(dy + r) * size + dx + r] = true;
+                }
+            }
+        }
+        checks.expect(wrong == 0, "disk " + r + ": " + wrong + " pixels off the octagon");
+        return footprint;
+    }
+
+    private static void compare(Checks checks, int[] pixels, int width, int height,
+                                Morphology.Element element, boolean[] footprint, int fw, int fh,
+                                String name) {
+        int[] eroded = bruteForce(pixels, width, height, footprint, fw, fh, false);
+        int[] dilated = bruteForce(pixels, width, height, footprint, fw, fh, true);
+        int[] opened = bruteForce(eroded, width, height, footprint, fw, fh, true);
+        int[] closed = bruteForce(dilated, width, height, footprint, fw, fh, false);
+        expectEqual(checks, Morphology.erode(pixels, width, height, element), eroded, name + " erode");
+        expectEqual(checks, Morphology.dilate(pixels, width, height, element), dilated, name + " dilate");
+        expectEqual(checks, Morphology.open(pixels, width, height, element), opened, name + " open");
+        expectEqual(checks, Morphology.close(pixels, width, height, element), closed, name + " close");
+    }
+
+    private static void compareBinary(Checks checks, int[] pixels, int width, int height,
+                                      boolean[] footprint, int fw, int fh, String name) {
+        BinaryImage mask = new BinaryImage(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mask.set(x, y, pixels[y * width + x] != 0);
+            }
+        }
+        int[] eroded = bruteForce(pixels, width, height, footprint, fw, fh, false);
+        int[] dilated = bruteForce(pixels, width, height, footprint, fw, fh, true);
+        expectEqual(checks, toPixels(mask.erode(fw, fh)), eroded, name + " erode");
+        expectEqual(checks, toPixels(mask.dilate(fw, fh)), dilated, name + " dilate");
+        int[] opened = bruteForce(eroded, width, height, footprint, fw, fh, true);
+        int[] closed = bruteForce(dilated, width, height, footprint, fw, fh, false);
+        expectEqual(checks, toPixels(mask.open(fw, fh)), opened, name + " open");
+        expectEqual(checks, toPixels(mask.close(fw, fh)), closed, name + " close");
+    }
+
+    // Min or max over the footprint anchored at (fw / 2, fh / 2); pixels outside the image are skipped
+    private static int[] bruteForce(int[] pixels, int width, int height, boolean[] footprint,
+                                    int fw, int fh, boolean max) {
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int extreme = max ? 0 : 255;
+                for (int ky = 0; ky < fh; ky++) {
+                    int sy = y + ky - fh / 2;
+                    for (int kx = 0; kx < fw; kx++) {
+                        int sx = x + kx - fw / 2;
+                        if (footprint[ky * fw + kx] && sx >= 0 && sx < width && sy >= 0 && sy < height) {
+                            int v = pixels[sy * width + sx];
+                            extreme = max ? Math.max(extreme, v) : Math.min(extreme, v);
+                        }
+                    }
+                }
+                result[y * width + x] = extreme;
+            }
+        }
+        return result;
+    }
+
+    private static int[] toPixels(BinaryImage mask) {
+        int width = mask.getWidth();
+        int[] pixels = new int[width * mask.getHeight()];
+        for (int y = 0; y < mask.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = mask.get(x, y) ? 255 : 0;
+            }
+        }
+        return pixels;
+    }
+
+    private static void expectEqual(Checks checks, int[] actual, int[] expected, String name) {
+        int mismatches = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (actual[i] != expected[i]) {
+                mismatches++;
+            }
+        }
+        checks.expect(mismatches == 0, name + ": " + mismatches + " pixels differ");
+    }
+}
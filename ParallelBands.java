@@ -0,0 +1,47 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a range of rows (or columns) into contiguous bands and runs them on the
+ * shared fork/join pool. Every parallel image operation in the project goes through here
+ * so they all share one set of worker threads.
+ */
+public class ParallelBands {
+    private static final int DEFAULT_MIN_BAND = 16;
+
+    public interface BandTask {
+        void run(int start, int end);
+    }
+
+    /**
+     * Runs the task over [0, length) in bands of at least 16 elements
+     */
+    public static void forEach(int length, BandTask task) {
+        forEach(length, DEFAULT_MIN_BAND, task);
+    }
+
+    public static void forEach(int length, int minBandSize, BandTask task) {
+        int bands = bandCount(length, minBandSize);
+        if (bands <= 1) {
+            if (length > 0) {
+                task.run(0, length);
+            }
+            return;
+        }
+        IntStream.range(0, bands).parallel().forEach(band ->
+            task.run(bandStart(band, bands, length), bandStart(band + 1, bands, length)));
+    }
+
+    /**
+     * Number of bands used for a range, capped at a few bands per worker thread
+     */
+    public static int bandCount(int length, int minBandSize) {
+        int maxBands = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int bands = (length + Math.max(1, minBandSize) - 1) / Math.max(1, minBandSize);
+        return Math.max(1, Math.min(bands, maxBands));
+    }
+
+    public static int bandStart(int band, int bands, int length) {
+        return (int) ((long) band * length / bands);
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+/**
+ * Histogram of one raster band computed over parallel row bands. Every worker counts into
+ * its own slice of a shared array, padded so that no two slices share a cache line, and the
+ * slices are summed at the end. 8-bit data uses 256 bins and 16-bit data 65536 bins.
+ * An optional mask restricts counting to pixels whose mask sample is non-zero.
+ */
+public class ParallelHistogram {
+    private static final int MIN_BAND_ROWS = 64;
+    // 64 bytes of int padding between per-band slices
+    private static final int PADDING = 16;
+
+    public static int[] of(BufferedImage image) {
+        return of(image.getRaster(), 0, null);
+    }
+
+    /**
+     * Histogram of band 0, counting only pixels where the mask (band 0) is non-zero
+     */
+    public static int[] of(BufferedImage image, BufferedImage mask) {
+        return of(image.getRaster(), 0, mask == null ? null : mask.getRaster());
+    }
+
+    public static int[] of(Raster raster, int band, Raster mask) {
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int minX = raster.getMinX();
+        int minY = raster.getMinY();
+        if (mask != null && (mask.getWidth() != width || mask.getHeight() != height)) {
+            throw new IllegalArgumentException("Mask must have the same size as the image");
+        }
+        int bits = raster.getSampleModel().getSampleSize(band);
+        if (bits > 16) {
+            throw new IllegalArgumentException("Only 8-bit and 16-bit samples are supported");
+        }
+        int bins = bits <= 8 ? 256 : 65536;
+
+        int bands = ParallelBands.bandCount(height, MIN_BAND_ROWS);
+        int stride = bins + PADDING;
+        int[] counts = new int[bands * stride];
+
+        ParallelBands.forEach(bands, 1, (start, end) -> {
+            int[] row = new int[width];
+            int[] maskRow = mask == null ? null : new int[width];
+            for (int b = start; b < end; b++) {
+                int offset = b * stride;
+                int y1 = ParallelBands.bandStart(b + 1, bands, height);
+                for (int y = ParallelBands.bandStart(b, bands, height); y < y1; y++) {
+                    raster.getSamples(minX, minY + y, width, 1, band, row);
+                    if (maskRow == null) {
+                        for (int x = 0; x < width; x++) {
+                            counts[offset + row[x]]++;
+                        }
+                    } else {
+                        mask.getSamples(mask.getMinX(), mask.getMinY() + y, width, 1, 0, maskRow);
+                        for (int x = 0; x < width; x++) {
+                            if (maskRow[x] != 0) {
+                                counts[offset + row[x]]++;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+
+        return merge(counts, bands, stride, bins);
+    }
+
+    /**
+     * Histogram of a plane of values in [0, bins)
+     */
+    public static int[] of(int[] pixels, int bins) {
+        int bands = ParallelBands.bandCount(pixels.length, MIN_BAND_ROWS * 1024);
+        int stride = bins + PADDING;
+        int[] counts = new int[bands * stride];
+
+        ParallelBands.forEach(bands, 1, (start, end) -> {
+            for (int b = start; b < end; b++) {
+                int offset = b * stride;
+                int i1 = ParallelBands.bandStart(b + 1, bands, pixels.length);
+                for (int i = ParallelBands.bandStart(b, bands, pixels.length); i < i1; i++) {
+                    counts[offset + pixels[i]]++;
+                }
+            }
+        });
+
+        return merge(counts, bands, stride, bins);
+    }
+
+    private static int[] merge(int[] counts, int bands, int stride, int bins) {
+        int[] histogram = new int[bins];
+        for (int b = 0; b < bands; b++) {
+            int offset = b * stride;
+            for (int i = 0; i < bins; i++) {
+                histogram[i] += counts[offset + i];
+            }
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,452 @@
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Pluggable optimizer for enhancement parameters (higher score is better).
+ * Candidates are first scored on a downsampled proxy of the image taken from its ImagePyramid,
+ * and only the most promising ones are rescored at full resolution.
+ *
+ * Searches over a point operation (a PointOp built from the parameters) need no images at all:
+ * the input histogram is built once and every candidate is scored from the remapped histogram
+ * in O(256), always at full resolution, so there is no proxy and no rescoring.
+ *
+ * Strategies:
+ *   GRID               - every grid point on the proxy, top candidates rescored at full size
+ *   COARSE_TO_FINE     - strided sub-grid, then refined around the best point with halving strides
+ *   GOLDEN_SECTION     - 1-D continuous search between the smallest and largest candidate
+ *   SUCCESSIVE_HALVING - all grid points on the coarsest level, keeping the better half per finer level
+ */
+public class ParameterSearch {
+
+    public enum Strategy { GRID, COARSE_TO_FINE, GOLDEN_SECTION, SUCCESSIVE_HALVING }
+
+    /**
+     * Scores a parameter vector on the given (possibly downsampled) image
+     */
+    public interface Objective {
+        double score(double[] params, BufferedImage image);
+    }
+
+    public static class Result {
+        private final double[] bestParams;
+        private final double bestScore;
+        private final int evaluations;
+        private final int fullResolutionEvaluations;
+        private final long wallTimeMillis;
+
+        Result(double[] bestParams, double bestScore, int evaluations, int fullResolutionEvaluations, long wallTimeMillis) {
+            this.bestParams = bestParams;
+            this.bestScore = bestScore;
+            this.evaluations = evaluations;
+            this.fullResolutionEvaluations = fullResolutionEvaluations;
+            this.wallTimeMillis = wallTimeMillis;
+        }
+
+        public double[] getBestParams() {
+            return bestParams.clone();
+        }
+
+        public double getBestScore() {
+            return bestScore;
+        }
+
+        public int getEvaluations() {
+            return evaluations;
+        }
+
+        public int getFullResolutionEvaluations() {
+            return fullResolutionEvaluations;
+        }
+
+        public long getWallTimeMillis() {
+            return wallTimeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("best=%s score=%.4f evaluations=%d (full resolution: %d) time=%d ms",
+                    Arrays.toString(bestParams), bestScore, evaluations, fullResolutionEvaluations, wallTimeMillis);
+        }
+    }
+
+    private final Strategy strategy;
+    private int proxyMaxSide = 256;
+    private int topCandidates = 3;
+    private Predicate<double[]> constraint = params -> true;
+
+    // Per-search state
+    private BufferedImage fullImage;
+    private Objective objective;
+    // Input histogram when searching a point operation, null otherwise
+    private int[] histogram;
+    private int evaluations;
+    private int fullResolutionEvaluations;
+
+    public ParameterSearch(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Longest side of the proxy image used for first-round scoring (default 256)
+     */
+    public ParameterSearch setProxyMaxSide(int proxyMaxSide) {
+        this.proxyMaxSide = proxyMaxSide;
+        return this;
+    }
+
+    /**
+     * How many proxy winners are rescored at full resolution (default 3)
+     */
+    public ParameterSearch setTopCandidates(int topCandidates) {
+        this.topCandidates = Math.max(1, topCandidates);
+        return this;
+    }
+
+    /**
+     * Only parameter vectors accepted by the constraint are evaluated (e.g. k2 > k1)
+     */
+    public ParameterSearch setConstraint(Predicate<double[]> constraint) {
+        this.constraint = constraint;
+        return this;
+    }
+
+    /**
+     * Searches the grid spanned by the candidate values of each parameter
+     */
+    public synchronized Result search(BufferedImage image, double[][] candidateValues, Objective objective) {
+        return run(image, candidateValues, objective, null);
+    }
+
+    /**
+     * Searches a point operation: every candidate is scored from the statistics of the input
+     * histogram remapped through operation(params), without rendering or downsampling the image
+     */
+    public synchronized Result search(BufferedImage image, double[][] candidateValues,
+                                      Function<double[], PointOp> operation, ToDoubleFunction<ImageStats> score) {
+        int[] inputHistogram = ImageStats.of(image).getHistogram();
+        return run(image, candidateValues, (params, ignored) -> score.applyAsDouble(
+                ImageStats.fromHistogram(operation.apply(params).remapHistogram(inputHistogram))), inputHistogram);
+    }
+
+    private Result run(BufferedImage image, double[][] candidateValues, Objective objective, int[] histogram) {
+        long startTime = System.nanoTime();
+        this.fullImage = image;
+        this.objective = objective;
+        this.histogram = histogram;
+        this.evaluations = 0;
+        this.fullResolutionEvaluations = 0;
+
+        double[][] axes = new double[candidateValues.length][];
+        for (int d = 0; d < axes.length; d++) {
+            axes[d] = candidateValues[d].clone();
+            Arrays.sort(axes[d]);
+        }
+
+        Scored best;
+        switch (strategy) {
+            case COARSE_TO_FINE:
+                best = coarseToFine(axes);
+                break;
+            case GOLDEN_SECTION:
+                best = goldenSection(axes);
+                break;
+            case SUCCESSIVE_HALVING:
+                best = successiveHalving(axes);
+                break;
+            default:
+                best = rescoreTop(scoreAll(gridPoints(axes), proxyLevel()));
+                break;
+        }
+
+        long wallTime = (System.nanoTime() - startTime) / 1_000_000;
+        this.fullImage = null;
+        this.objective = null;
+        this.histogram = null;
+        if (best == null) {
+            return new Result(new double[0], Double.NEGATIVE_INFINITY, evaluations, fullResolutionEvaluations, wallTime);
+        }
+        return new Result(best.params, best.score, evaluations, fullResolutionEvaluations, wallTime);
+    }
+
+    private static class Scored {
+        final double[] params;
+        final double score;
+
+        Scored(double[] params, double score) {
+            this.params = params;
+            this.score = score;
+        }
+    }
+
+    private Scored coarseToFine(double[][] axes) {
+        int dims = axes.length;
+        int level = proxyLevel();
+        Map<String, Scored> cache = new HashMap<>();
+
+        int stride = 1;
+        for (double[] axis : axes) {
+            stride = Math.max(stride, Integer.highestOneBit(Math.max(1, (axis.length - 1) / 2)));
+        }
+
+        // Initial strided sub-grid (always including the last value of every axis)
+        List<int[]> indices = new ArrayList<>();
+        List<List<Integer>> perAxis = new ArrayList<>();
+        for (double[] axis : axes) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < axis.length; i += stride) {
+                values.add(i);
+            }
+            if (values.get(values.size() - 1) != axis.length - 1) {
+                values.add(axis.length - 1);
+            }
+            perAxis.add(values);
+        }
+        cartesian(perAxis, 0, new int[dims], indices);
+        scoreIndices(axes, indices, level, cache);
+        Scored best = best(new ArrayList<>(cache.values()));
+
+        // Refine around the incumbent with halving strides
+        while (stride > 1 && best != null) {
+            stride /= 2;
+            int[] center = indexOf(axes, best.params);
+            perAxis.clear();
+            for (int d = 0; d < dims; d++) {
+                List<Integer> values = new ArrayList<>();
+                for (int offset = -stride; offset <= stride; offset += stride) {
+                    int i = center[d] + offset;
+                    if (i >= 0 && i < axes[d].length) {
+                        values.add(i);
+                    }
+                }
+                perAxis.add(values);
+            }
+            indices.clear();
+            cartesian(perAxis, 0, new int[dims], indices);
+            scoreIndices(axes, indices, level, cache);
+            best = best(new ArrayList<>(cache.values()));
+        }
+        return rescoreTop(new ArrayList<>(cache.values()));
+    }
+
+    private Scored goldenSection(double[][] axes) {
+        if (axes.length != 1) {
+            throw new IllegalArgumentException("Golden-section search only supports one parameter");
+        }
+        double[] axis = axes[0];
+        double low = axis[0];
+        double high = axis[axis.length - 1];
+        // Stop once the bracket is finer than the closest pair of candidates
+        double tolerance = Double.MAX_VALUE;
+        for (int i = 1; i < axis.length; i++) {
+            if (axis[i] > axis[i - 1]) {
+                tolerance = Math.min(tolerance, (axis[i] - axis[i - 1]) / 4);
+            }
+        }
+        if (tolerance == Double.MAX_VALUE) {
+            double[] params = {low};
+            return new Scored(params, evaluate(params, fullImage, true));
+        }
+        int level = proxyLevel();
+        BufferedImage proxy = levelImage(level);
+        double ratio = (Math.sqrt(5) - 1) / 2;
+
+        double a = high - ratio * (high - low);
+        double b = low + ratio * (high - low);
+        double scoreA = evaluate(new double[]{a}, proxy, level == 0);
+        double scoreB = evaluate(new double[]{b}, proxy, level == 0);
+        while (high - low > tolerance) {
+            if (scoreA >= scoreB) {
+                high = b;
+                b = a;
+                scoreB = scoreA;
+                a = high - ratio * (high - low);
+                scoreA = evaluate(new double[]{a}, proxy, level == 0);
+            } else {
+                low = a;
+                a = b;
+                scoreA = scoreB;
+                b = low + ratio * (high - low);
+                scoreB = evaluate(new double[]{b}, proxy, level == 0);
+            }
+        }
+        double[] bestParams = {(low + high) / 2};
+        return new Scored(bestParams, evaluate(bestParams, fullImage, true));
+    }
+
+    private Scored successiveHalving(double[][] axes) {
+        List<double[]> survivors = gridPoints(axes);
+        for (int level = proxyLevel(); level >= 0; level--) {
+            List<Scored> scored = scoreAll(survivors, level);
+            if (scored.isEmpty()) {
+                return null;
+            }
+            scored.sort(Comparator.comparingDouble((Scored s) -> s.score).reversed());
+            if (level == 0) {
+                return scored.get(0);
+            }
+            survivors = new ArrayList<>();
+            int keep = Math.max(1, (scored.size() + 1) / 2);
+            for (int i = 0; i < keep; i++) {
+                survivors.add(scored.get(i).params);
+            }
+        }
+        return null;
+    }
+
+    // Rescores the best proxy candidates at full resolution and returns the winner
+    private Scored rescoreTop(List<Scored> proxyScores) {
+        if (proxyScores.isEmpty()) {
+            return null;
+        }
+        if (proxyLevel() == 0) {
+            return best(proxyScores);
+        }
+        List<Scored> sorted = new ArrayList<>(proxyScores);
+        sorted.sort(Comparator.comparingDouble((Scored s) -> s.score).reversed());
+        List<double[]> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(topCandidates, sorted.size()); i++) {
+            top.add(sorted.get(i).params);
+        }
+        return best(scoreAll(top, 0));
+    }
+
+    // Scores the grid points not seen before and records them in the cache
+    private void scoreIndices(double[][] axes, List<int[]> indices, int level, Map<String, Scored> cache) {
+        List<double[]> pending = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (int[] index : indices) {
+            String key = Arrays.toString(index);
+            if (cache.containsKey(key) || keys.contains(key)) {
+                continue;
+            }
+            double[] params = new double[axes.length];
+            for (int d = 0; d < axes.length; d++) {
+                params[d] = axes[d][index[d]];
+            }
+            if (constraint.test(params)) {
+                pending.add(params);
+                keys.add(key);
+            }
+        }
+        List<Scored> scored = scoreAll(pending, level);
+        for (int i = 0; i < scored.size(); i++) {
+            cache.put(keys.get(i), scored.get(i));
+        }
+    }
+
+    // Scores candidates on one pyramid level, in parallel
+    private List<Scored> scoreAll(List<double[]> candidates, int level) {
+        BufferedImage image = levelImage(level);
+        List<double[]> valid = new ArrayList<>();
+        for (double[] params : candidates) {
+            if (constraint.test(params)) {
+                valid.add(params);
+            }
+        }
+        double[] scores = new double[valid.size()];
+        ParallelBands.forEach(valid.size(), 1, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                scores[i] = objective.score(valid.get(i), image);
+            }
+        });
+        List<Scored> scored = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            scored.add(new Scored(valid.get(i), scores[i]));
+        }
+        synchronized (this) {
+            evaluations += valid.size();
+            if (level == 0) {
+                fullResolutionEvaluations += valid.size();
+            }
+        }
+        return scored;
+    }
+
+    private double evaluate(double[] params, BufferedImage image, boolean fullResolution) {
+        evaluations++;
+        if (fullResolution) {
+            fullResolutionEvaluations++;
+        }
+        return objective.score(params, image);
+    }
+
+    private int proxyLevel() {
+        // Histogram scoring costs the same at every level
+        if (histogram != null) {
+            return 0;
+        }
+        ImagePyramid pyramid = ImagePyramid.of(fullImage);
+        int level = 0;
+        while (true) {
+            BufferedImage current = pyramid.getLevel(level);
+            BufferedImage next = pyramid.getLevel(level + 1);
+            if (next == current || Math.max(next.getWidth(), next.getHeight()) < proxyMaxSide) {
+                return level;
+            }
+            level++;
+        }
+    }
+
+    private BufferedImage levelImage(int level) {
+        return level == 0 ? fullImage : ImagePyramid.of(fullImage).getLevel(level);
+    }
+
+    private static Scored best(List<Scored> scored) {
+        Scored best = null;
+        for (Scored s : scored) {
+            if (s != null && (best == null || s.score > best.score)) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    private static List<double[]> gridPoints(double[][] axes) {
+        List<List<Integer>> perAxis = new ArrayList<>();
+        for (double[] axis : axes) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < axis.length; i++) {
+                values.add(i);
+            }
+            perAxis.add(values);
+        }
+        List<int[]> indices = new ArrayList<>();
+        cartesian(perAxis, 0, new int[axes.length], indices);
+        List<double[]> points = new ArrayList<>();
+        for (int[] index : indices) {
+            double[] params = new double[axes.length];
+            for (int d = 0; d < axes.length; d++) {
+                params[d] = axes[d][index[d]];
+            }
+            points.add(params);
+        }
+        return points;
+    }
+
+    private static void cartesian(List<List<Integer>> perAxis, int dim, int[] current, List<int[]> out) {
+        if (dim == perAxis.size()) {
+            out.add(current.clone());
+            return;
+        }
+        for (int value : perAxis.get(dim)) {
+            current[dim] = value;
+            cartesian(perAxis, dim + 1, current, out);
+        }
+    }
+
+    private static int[] indexOf(double[][] axes, double[] params) {
+        int[] index = new int[axes.length];
+        for (int d = 0; d < axes.length; d++) {
+            index[d] = Arrays.binarySearch(axes[d], params[d]);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,323 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * An intensity mapping compiled into lookup tables: 256 entries for 8-bit samples
+ * and 65536 entries (built on first use) for 16-bit samples. Gray images use one table,
+ * RGB images one table per channel, so applying the operation is a table lookup per sample.
+ */
+public class PointOp {
+    private static final int CHANNELS = 3;
+
+    // 8-bit tables for R, G, B (the same array three times for channel-independent mappings)
+    final int[][] luts8;
+    // Normalized [0,1] -> [0,1] mappings used to build 16-bit tables, or null for 8-bit-only ops
+    private final DoubleUnaryOperator[] functions;
+    private volatile int[][] luts16;
+
+    PointOp(int[][] luts8, DoubleUnaryOperator[] functions) {
+        this.luts8 = luts8;
+        this.functions = functions;
+    }
+
+    /**
+     * Mapping defined directly on 8-bit values; results are clamped to [0, 255]
+     */
+    public static PointOp of(IntUnaryOperator mapping) {
+        int[] lut = new int[256];
+        for (int v = 0; v < 256; v++) {
+            lut[v] = clamp(mapping.applyAsInt(v), 255);
+        }
+        return new PointOp(new int[][]{lut, lut, lut}, null);
+    }
+
+    /**
+     * Mapping on normalized intensities [0, 1]; usable for both 8-bit and 16-bit samples
+     */
+    public static PointOp ofNormalized(DoubleUnaryOperator mapping) {
+        int[] lut = buildTable(mapping, 255);
+        return new PointOp(new int[][]{lut, lut, lut}, new DoubleUnaryOperator[]{mapping, mapping, mapping});
+    }
+
+    /**
+     * Separate mappings for the red, green and blue channels (gray images use the red one)
+     */
+    public static PointOp perChannel(PointOp red, PointOp green, PointOp blue) {
+        int[][] luts = {red.luts8[0], green.luts8[1], blue.luts8[2]};
+        DoubleUnaryOperator[] functions = null;
+        if (red.functions != null && green.functions != null && blue.functions != null) {
+            functions = new DoubleUnaryOperator[]{red.functions[0], green.functions[1], blue.functions[2]};
+        }
+        return new PointOp(luts, functions);
+    }
+
+    /**
+     * Composes this operation with a following one into a single set of tables,
+     * giving exactly the result of applying both one after the other
+     */
+    public PointOp andThen(PointOp next) {
+        int[][] luts = new int[CHANNELS][];
+        for (int c = 0; c < CHANNELS; c++) {
+            luts[c] = (c > 0 && luts8[c] == luts8[c - 1] && next.luts8[c] == next.luts8[c - 1])
+                    ? luts[c - 1]
+                    : composeTables(luts8[c], next.luts8[c]);
+        }
+
+        DoubleUnaryOperator[] composed = null;
+        if (functions != null && next.functions != null) {
+            composed = new DoubleUnaryOperator[CHANNELS];
+            for (int c = 0; c < CHANNELS; c++) {
+                if (c > 0 && functions[c] == functions[c - 1] && next.functions[c] == next.functions[c - 1]) {
+                    composed[c] = composed[c - 1];
+                } else {
+                    DoubleUnaryOperator first = functions[c];
+                    DoubleUnaryOperator second = next.functions[c];
+                    // Quantize in between so 16-bit tables match two separate passes
+                    composed[c] = v -> second.applyAsDouble(quantize16(first.applyAsDouble(v)));
+                }
+            }
+        }
+        return new PointOp(luts, composed);
+    }
+
+    public int map(int value) {
+        return luts8[0][value];
+    }
+
+    public int map(int channel, int value) {
+        return luts8[channel][value];
+    }
+
+    /**
+     * Histogram of an 8-bit channel after this operation: every input bin moves to the bin
+     * of its mapped value, so the output histogram costs 256 steps whatever the image size
+     */
+    public int[] remapHistogram(int[] histogram) {
+        return remapHistogram(0, histogram);
+    }
+
+    public int[] remapHistogram(int channel, int[] histogram) {
+        if (histogram.length != 256) {
+            throw new IllegalArgumentException("Histogram must have 256 bins");
+        }
+        int[] lut = luts8[channel];
+        int[] remapped = new int[256];
+        for (int value = 0; value < 256; value++) {
+            remapped[lut[value]] += histogram[value];
+        }
+        return remapped;
+    }
+
+    /**
+     * Applies the operation and returns a new image with the same color model
+     */
+    public BufferedImage apply(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ColorModel cm = image.getColorModel();
+
+        if (!usesRasterPath(image)) {
+            // Indexed or unusual layouts: go through packed RGB instead
+            BufferedImage output = new BufferedImage(width, height,
+                    cm.hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            ParallelBands.forEach(height, (start, end) -> {
+                int[] row = new int[width];
+                for (int y = start; y < end; y++) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        row[x] = mapRGB(row[x]);
+                    }
+                    output.setRGB(0, y, width, 1, row, 0, width);
+                }
+            });
+            return output;
+        }
+
+        WritableRaster target = cm.createCompatibleWritableRaster(width, height);
+        applyToRaster(image.getRaster(), target);
+        return new BufferedImage(cm, target, image.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Applies several operations to the same image, reading every input row once and
+     * writing one output per operation. Row bands are processed in parallel.
+     */
+    public static BufferedImage[] applyAll(BufferedImage image, PointOp... ops) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ColorModel cm = image.getColorModel();
+        BufferedImage[] outputs = new BufferedImage[ops.length];
+
+        if (!usesRasterPath(image)) {
+            int type = cm.hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            for (int k = 0; k < ops.length; k++) {
+                outputs[k] = new BufferedImage(width, height, type);
+            }
+            ParallelBands.forEach(height, (start, end) -> {
+                int[] row = new int[width];
+                int[] mapped = new int[width];
+                for (int y = start; y < end; y++) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for (int k = 0; k < ops.length; k++) {
+                        for (int x = 0; x < width; x++) {
+                            mapped[x] = ops[k].mapRGB(row[x]);
+                        }
+                        outputs[k].setRGB(0, y, width, 1, mapped, 0, width);
+                    }
+                }
+            });
+            return outputs;
+        }
+
+        Raster source = image.getRaster();
+        int bands = source.getNumBands();
+        WritableRaster[] targets = new WritableRaster[ops.length];
+        int[][][] tables = new int[ops.length][bands][];
+        for (int k = 0; k < ops.length; k++) {
+            targets[k] = cm.createCompatibleWritableRaster(width, height);
+            outputs[k] = new BufferedImage(cm, targets[k], image.isAlphaPremultiplied(), null);
+            for (int b = 0; b < bands; b++) {
+                int channel = bands == 1 ? 0 : b;
+                if (channel < CHANNELS) {
+                    tables[k][b] = source.getSampleModel().getSampleSize(b) > 8
+                            ? ops[k].table16(channel) : ops[k].luts8[channel];
+                }
+            }
+        }
+
+        int minX = source.getMinX();
+        int minY = source.getMinY();
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            int[] mapped = new int[width];
+            for (int y = start; y < end; y++) {
+                for (int b = 0; b < bands; b++) {
+                    source.getSamples(minX, minY + y, width, 1, b, row);
+                    for (int k = 0; k < ops.length; k++) {
+                        int[] table = tables[k][b];
+                        if (table == null) {
+                            targets[k].setSamples(0, y, width, 1, b, row);
+                            continue;
+                        }
+                        for (int x = 0; x < width; x++) {
+                            mapped[x] = table[row[x]];
+                        }
+                        targets[k].setSamples(0, y, width, 1, b, mapped);
+                    }
+                }
+            }
+        });
+        return outputs;
+    }
+
+    /**
+     * Maps every sample of the source raster into the target raster (which may be the same raster)
+     */
+    public void applyToRaster(Raster source, WritableRaster target) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int bands = source.getNumBands();
+        int[][] tables = new int[bands][];
+        for (int b = 0; b < bands; b++) {
+            int channel = bands == 1 ? 0 : b;
+            // Bands past R, G, B (alpha) are copied unchanged
+            if (channel < CHANNELS) {
+                tables[b] = source.getSampleModel().getSampleSize(b) > 8 ? table16(channel) : luts8[channel];
+            }
+        }
+
+        int minX = source.getMinX();
+        int minY = source.getMinY();
+        int targetX = target.getMinX();
+        int targetY = target.getMinY();
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                for (int b = 0; b < bands; b++) {
+                    source.getSamples(minX, minY + y, width, 1, b, row);
+                    int[] table = tables[b];
+                    if (table != null) {
+                        for (int x = 0; x < width; x++) {
+                            row[x] = table[row[x]];
+                        }
+                    }
+                    target.setSamples(targetX, targetY + y, width, 1, b, row);
+                }
+            }
+        });
+    }
+
+    int mapRGB(int argb) {
+        int r = luts8[0][(argb >> 16) & 0xFF];
+        int g = luts8[1][(argb >> 8) & 0xFF];
+        int b = luts8[2][argb & 0xFF];
+        return (argb & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * 65536-entry table for one channel, built the first time a 16-bit image is processed
+     */
+    int[] table16(int channel) {
+        int[][] tables = luts16;
+        if (tables == null) {
+            if (functions == null) {
+                throw new IllegalStateException("This point operation is only defined for 8-bit samples");
+            }
+            tables = new int[CHANNELS][];
+            for (int c = 0; c < CHANNELS; c++) {
+                tables[c] = (c > 0 && functions[c] == functions[c - 1])
+                        ? tables[c - 1]
+                        : buildTable(functions[c], 65535);
+            }
+            luts16 = tables;
+        }
+        return tables[channel];
+    }
+
+    static boolean usesRasterPath(BufferedImage image) {
+        if (image.getColorModel() instanceof IndexColorModel) {
+            return false;
+        }
+        int bands = image.getRaster().getNumBands();
+        if (bands != 1 && bands < CHANNELS) {
+            return false;
+        }
+        for (int b = 0; b < bands; b++) {
+            int size = image.getSampleModel().getSampleSize(b);
+            if (size != 8 && size != 16) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] composeTables(int[] first, int[] second) {
+        int[] lut = new int[first.length];
+        for (int v = 0; v < first.length; v++) {
+            lut[v] = second[first[v]];
+        }
+        return lut;
+    }
+
+    private static double quantize16(double normalized) {
+        return clamp((int) Math.round(normalized * 65535), 65535) / 65535.0;
+    }
+
+    private static int[] buildTable(DoubleUnaryOperator mapping, int maxValue) {
+        int[] lut = new int[maxValue + 1];
+        for (int v = 0; v <= maxValue; v++) {
+            double transformed = mapping.applyAsDouble(v / (double) maxValue);
+            lut[v] = clamp((int) Math.round(transformed * maxValue), maxValue);
+        }
+        return lut;
+    }
+
+    private static int clamp(int value, int maxValue) {
+        return Math.max(0, Math.min(maxValue, value));
+    }
+}
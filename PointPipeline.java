@@ -0,0 +1,118 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Chain of image operations that fuses consecutive point operations into one lookup table.
+ * A grayscale conversion followed by point operations runs as a single pass: the fused table
+ * is folded into the luma computation, so no intermediate images are allocated.
+ *
+ * Example:
+ *   BufferedImage result = new PointPipeline()
+ *       .grayscale()
+ *       .then(ImageProcessing.customGrayscaleOp())
+ *       .then(ImageProcessing.powerLawOp(1.0, 0.3))
+ *       .run(image);
+ */
+public class PointPipeline {
+    private static final Object GRAYSCALE = new Object();
+
+    // Luminosity weights as per-channel tables, summed in the same order as convertToGrayscale
+    private static final double[] LUMA_RED = new double[256];
+    private static final double[] LUMA_GREEN = new double[256];
+    private static final double[] LUMA_BLUE = new double[256];
+    // Raster sample that setRGB() stores in a TYPE_BYTE_GRAY image for an sRGB gray level
+    private static final int[] GRAY_TO_SAMPLE = new int[256];
+    static {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY);
+        for (int v = 0; v < 256; v++) {
+            LUMA_RED[v] = 0.299 * v;
+            LUMA_GREEN[v] = 0.587 * v;
+            LUMA_BLUE[v] = 0.114 * v;
+            probe.setRGB(0, 0, new Color(v, v, v).getRGB());
+            GRAY_TO_SAMPLE[v] = probe.getRaster().getSample(0, 0, 0);
+        }
+    }
+
+    // Each stage is GRAYSCALE, a PointOp or a general UnaryOperator<BufferedImage>
+    private final List<Object> stages = new ArrayList<>();
+
+    /**
+     * Luminosity grayscale conversion (same output as ImageProcessing.convertToGrayscale)
+     */
+    public PointPipeline grayscale() {
+        stages.add(GRAYSCALE);
+        return this;
+    }
+
+    public PointPipeline then(PointOp op) {
+        stages.add(op);
+        return this;
+    }
+
+    /**
+     * Adds a general (non point-wise) stage, such as a resize; it ends the current fused run
+     */
+    public PointPipeline then(UnaryOperator<BufferedImage> operation) {
+        stages.add(operation);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public BufferedImage run(BufferedImage image) {
+        BufferedImage current = image;
+        int i = 0;
+        while (i < stages.size()) {
+            Object stage = stages.get(i);
+            if (stage == GRAYSCALE || stage instanceof PointOp) {
+                // Collapse the run of point operations that follows into one table
+                PointOp fused = null;
+                int j = (stage == GRAYSCALE) ? i + 1 : i;
+                while (j < stages.size() && stages.get(j) instanceof PointOp) {
+                    PointOp op = (PointOp) stages.get(j);
+                    fused = (fused == null) ? op : fused.andThen(op);
+                    j++;
+                }
+                current = (stage == GRAYSCALE) ? grayscale(current, fused) : fused.apply(current);
+                i = j;
+            } else {
+                current = ((UnaryOperator<BufferedImage>) stage).apply(current);
+                i++;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Converts to TYPE_BYTE_GRAY and applies the (optional) fused table in the same pass
+     */
+    private static BufferedImage grayscale(BufferedImage original, PointOp op) {
+        int width = original.getWidth();
+        int height = original.getHeight();
+        int[] table = new int[256];
+        for (int gray = 0; gray < 256; gray++) {
+            table[gray] = (op == null) ? GRAY_TO_SAMPLE[gray] : op.map(GRAY_TO_SAMPLE[gray]);
+        }
+
+        BufferedImage grayscale = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = grayscale.getRaster();
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                original.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    int gray = (int) (LUMA_RED[(rgb >> 16) & 0xFF]
+                            + LUMA_GREEN[(rgb >> 8) & 0xFF]
+                            + LUMA_BLUE[rgb & 0xFF]);
+                    row[x] = table[gray];
+                }
+                raster.setSamples(0, y, width, 1, 0, row);
+            }
+        });
+        return grayscale;
+    }
+}
@@ -0,0 +1,306 @@
+import java.util.Arrays;
+
+/**
+ * Containment tree of a binary mask, the counterpart of the hierarchy cv2.findContours returns
+ * with RETR_TREE. Foreground components (8-connected) and holes (4-connected background
+ * components that do not touch the border) are the regions; a region's parent is the region
+ * that immediately surrounds it, and top-level foreground components have none. Both
+ * labelings come from ConnectedComponents, and the tree, region areas and contour lengths
+ * take a few linear passes, with no contour tracing.
+ *
+ * A filled region is what drawContours(..., -1, 255, -1) paints for its contour: a foreground
+ * component plus everything nested inside it, or a hole plus its nesting and the foreground
+ * pixels along its edge. Contour areas follow cv2.contourArea through Pick's theorem
+ * (interior pixels + boundary pixels / 2 - 1), which is exact for simple contours. Pixels of
+ * the surrounding component that a hole's contour pinches off without touching the hole (rare
+ * one-pixel pockets) are left out of the hole's filled region.
+ */
+public class RegionTree {
+    private final int width;
+    private final int height;
+    private final int[] whiteLabels;
+    private final int[] blackLabels;
+    // Nodes: 0 is the outside, 1..W foreground labels, W+1..W+B background labels
+    private final int whiteCount;
+    private final int[] parent;
+    private final int[] depth;
+    private final boolean[] enclosed;
+    private final int[] subtreeArea;
+    private final int[] boundary;
+    private final int[][] boxes;
+    // Regions in raster order of their first pixel
+    private final int[] regions;
+    private final int[] regionOf;
+
+    private RegionTree(boolean[] foreground, int width, int height) {
+        this.width = width;
+        this.height = height;
+        boolean[] background = new boolean[width * height];
+        for (int i = 0; i < background.length; i++) {
+            background[i] = !foreground[i];
+        }
+        ConnectedComponents white = ConnectedComponents.label(foreground, width, height, 8);
+        ConnectedComponents black = ConnectedComponents.label(background, width, height, 4);
+        whiteLabels = white.getLabels();
+        blackLabels = black.getLabels();
+        whiteCount = white.getCount();
+        int nodes = whiteCount + black.getCount() + 1;
+
+        // First pixel of every node, and the nodes in that order
+        int[] firstPixel = new int[nodes];
+        Arrays.fill(firstPixel, -1);
+        int[] order = new int[nodes - 1];
+        int seen = 0;
+        for (int i = 0; i < width * height; i++) {
+            int node = node(i);
+            if (firstPixel[node] < 0) {
+                firstPixel[node] = i;
+                order[seen++] = node;
+            }
+        }
+
+        // The pixel above a component's first pixel lies on its outer edge, in the surrounding
+        // component (or outside the image); parents therefore come earlier in the order
+        parent = new int[nodes];
+        depth = new int[nodes];
+        enclosed = new boolean[nodes];
+        boxes = new int[nodes][];
+        boolean[] outer = new boolean[nodes];
+        outer[0] = true;
+        for (int node : order) {
+            int first = firstPixel[node];
+            if (node <= whiteCount) {
+                parent[node] = first < width ? 0 : node(first - width);
+                boxes[node] = white.getBoundingBox(node);
+            } else {
+                int label = node - whiteCount;
+                outer[node] = black.touchesBorder(label);
+                parent[node] = outer[node] ? 0 : node(first - width);
+                int[] box = black.getBoundingBox(label);
+                // A hole's contour runs along the foreground pixels around it
+                boxes[node] = outer[node] ? box : new int[]{box[0] - 1, box[1] - 1, box[2] + 1, box[3] + 1};
+            }
+            depth[node] = depth[parent[node]] + 1;
+            enclosed[node] = !outer[node] && (!outer[parent[node]] || enclosed[parent[node]]);
+        }
+
+        int regionCount = 0;
+        regionOf = new int[nodes];
+        Arrays.fill(regionOf, -1);
+        int[] regionNodes = new int[nodes];
+        for (int node : order) {
+            if (!outer[node]) {
+                regionOf[node] = regionCount;
+                regionNodes[regionCount++] = node;
+            }
+        }
+        regions = Arrays.copyOf(regionNodes, regionCount);
+
+        // Contour pixels: for a foreground component, its pixels next to the region around it;
+        // for a hole, the pixels of the surrounding component next to it
+        boundary = new int[nodes];
+        int[] neighbors = new int[4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                int node = whiteLabels[index];
+                if (node == 0) {
+                    continue;
+                }
+                int around = parent[node];
+                boolean edge = false;
+                int holes = 0;
+                for (int k = 0; k < 4; k++) {
+                    int nx = x + (k == 0 ? -1 : k == 1 ? 1 : 0);
+                    int ny = y + (k == 2 ? -1 : k == 3 ? 1 : 0);
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                        edge |= outer[around];
+                        continue;
+                    }
+                    int label = blackLabels[ny * width + nx];
+                    if (label == 0) {
+                        continue;
+                    }
+                    int neighbor = whiteCount + label;
+                    edge |= neighbor == around || (outer[around] && outer[neighbor]);
+                    if (!outer[neighbor] && parent[neighbor] == node && !contains(neighbors, holes, neighbor)) {
+                        neighbors[holes++] = neighbor;
+                    }
+                }
+                if (edge) {
+                    boundary[node]++;
+                }
+                for (int h = 0; h < holes; h++) {
+                    boundary[neighbors[h]]++;
+                }
+            }
+        }
+
+        // Pixels of every node plus everything nested inside it
+        subtreeArea = new int[nodes];
+        for (int node = 1; node < nodes; node++) {
+            subtreeArea[node] = node <= whiteCount ? white.getArea(node) : black.getArea(node - whiteCount);
+        }
+        for (int i = seen - 1; i >= 0; i--) {
+            int node = order[i];
+            if (!outer[node]) {
+                subtreeArea[parent[node]] += subtreeArea[node];
+            }
+        }
+    }
+
+    public static RegionTree of(BinaryImage mask) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        boolean[] foreground = new boolean[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                foreground[y * width + x] = mask.get(x, y);
+            }
+        }
+        return new RegionTree(foreground, width, height);
+    }
+
+    public static RegionTree of(boolean[] foreground, int width, int height) {
+        if (foreground.length != width * height) {
+            throw new IllegalArgumentException("Mask size does not match width x height");
+        }
+        return new RegionTree(foreground, width, height);
+    }
+
+    public int getRegionCount() {
+        return regions.length;
+    }
+
+    public boolean isHole(int region) {
+        return nodeOf(region) > whiteCount;
+    }
+
+    /**
+     * Region immediately surrounding this one, or -1 for a top-level foreground component
+     */
+    public int getParent(int region) {
+        int node = nodeOf(region);
+        return regionOf[parent[node]];
+    }
+
+    /**
+     * Pixels of the filled region
+     */
+    public int getArea(int region) {
+        int node = nodeOf(region);
+        return subtreeArea[node] + (node > whiteCount ? boundary[node] : 0);
+    }
+
+    /**
+     * Area enclosed by the region's contour, as cv2.contourArea reports it
+     */
+    public double getContourArea(int region) {
+        int node = nodeOf(region);
+        // Pick: interior + boundary / 2 - 1; a hole's boundary lies outside its pixels
+        double area = node > whiteCount
+                ? subtreeArea[node] + boundary[node] / 2.0 - 1
+                : subtreeArea[node] - boundary[node] / 2.0 - 1;
+        return Math.max(0, area);
+    }
+
+    /**
+     * {minX, minY, maxX, maxY} of the filled region (inclusive)
+     */
+    public int[] getBoundingBox(int region) {
+        return boxes[nodeOf(region)].clone();
+    }
+
+    /**
+     * The filled region as a mask
+     */
+    public BinaryImage fill(int region) {
+        int node = nodeOf(region);
+        int[] box = boxes[node];
+        BinaryImage mask = new BinaryImage(width, height);
+        for (int y = box[1]; y <= box[3]; y++) {
+            for (int x = box[0]; x <= box[2]; x++) {
+                if (inside(node, x, y)) {
+                    mask.set(x, y, true);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Union of the filled regions that have a parent (every region drawn when a caller fills
+     * the contours whose hierarchy parent is not -1)
+     */
+    public BinaryImage fillNested() {
+        BinaryImage mask = new BinaryImage(width, height);
+        // Rows never share words, so bands of rows can be written in parallel
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                for (int x = 0; x < width; x++) {
+                    int node = node(y * width + x);
+                    if (enclosed[node] || isHoleEdge(node, x, y, -1)) {
+                        mask.set(x, y, true);
+                    }
+                }
+            }
+        });
+        return mask;
+    }
+
+    // Whether pixel (x, y) belongs to the filled region of a node
+    private boolean inside(int node, int x, int y) {
+        int pixelNode = node(y * width + x);
+        if (node > whiteCount && isHoleEdge(pixelNode, x, y, node)) {
+            return true;
+        }
+        while (depth[pixelNode] > depth[node]) {
+            pixelNode = parent[pixelNode];
+        }
+        return pixelNode == node;
+    }
+
+    // Whether a foreground pixel lies on the contour of a hole it surrounds (a given hole, or any with -1)
+    private boolean isHoleEdge(int pixelNode, int x, int y, int hole) {
+        if (pixelNode == 0 || pixelNode > whiteCount) {
+            return false;
+        }
+        for (int k = 0; k < 4; k++) {
+            int nx = x + (k == 0 ? -1 : k == 1 ? 1 : 0);
+            int ny = y + (k == 2 ? -1 : k == 3 ? 1 : 0);
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                continue;
+            }
+            int label = blackLabels[ny * width + nx];
+            if (label == 0) {
+                continue;
+            }
+            int neighbor = whiteCount + label;
+            if (regionOf[neighbor] >= 0 && parent[neighbor] == pixelNode && (hole < 0 || neighbor == hole)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int node(int index) {
+        int label = whiteLabels[index];
+        return label != 0 ? label : whiteCount + blackLabels[index];
+    }
+
+    private int nodeOf(int region) {
+        if (region < 0 || region >= regions.length) {
+            throw new IllegalArgumentException("No region " + region);
+        }
+        return regions[region];
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,288 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Separable resampler with selectable reconstruction kernels.
+ * Works in pure Java (no Graphics2D), so results are identical on every JDK pipeline.
+ */
+public class Resampler {
+
+    public enum Kernel {
+        BICUBIC("bicubic", 2.0),
+        MITCHELL("mitchell", 2.0),
+        LANCZOS2("lanczos2", 2.0),
+        LANCZOS3("lanczos3", 3.0);
+
+        private final String name;
+        private final double radius;
+
+        Kernel(String name, double radius) {
+            this.name = name;
+            this.radius = radius;
+        }
+
+        public double getRadius() {
+            return radius;
+        }
+
+        public double weight(double x) {
+            x = Math.abs(x);
+            if (x >= radius) {
+                return 0;
+            }
+            switch (this) {
+                case BICUBIC:
+                    return cubic(x, 0.0, 0.5);   // Keys, a = -0.5
+                case MITCHELL:
+                    return cubic(x, 1.0 / 3.0, 1.0 / 3.0);
+                default:
+                    return sinc(x) * sinc(x / radius);
+            }
+        }
+
+        /**
+         * Looks a kernel up by its method name (e.g. "lanczos3"), or null if unknown
+         */
+        public static Kernel forName(String name) {
+            for (Kernel kernel : values()) {
+                if (kernel.name.equalsIgnoreCase(name)) {
+                    return kernel;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Mitchell-Netravali family of cubics; (B=0, C=0.5) is Keys' bicubic
+    private static double cubic(double x, double b, double c) {
+        if (x < 1) {
+            return ((12 - 9 * b - 6 * c) * x * x * x
+                    + (-18 + 12 * b + 6 * c) * x * x
+                    + (6 - 2 * b)) / 6.0;
+        }
+        return ((-b - 6 * c) * x * x * x
+                + (6 * b + 30 * c) * x * x
+                + (-12 * b - 48 * c) * x
+                + (8 * b + 24 * c)) / 6.0;
+    }
+
+    private static double sinc(double x) {
+        if (x == 0) {
+            return 1;
+        }
+        double px = Math.PI * x;
+        return Math.sin(px) / px;
+    }
+
+    /**
+     * Contribution weights for one axis: each destination index reads
+     * taps consecutive source samples starting at first[i]
+     */
+    private static class Contributions {
+        final int[] first;
+        final float[] weights;
+        final int taps;
+
+        Contributions(int[] first, float[] weights, int taps) {
+            this.first = first;
+            this.weights = weights;
+            this.taps = taps;
+        }
+    }
+
+    // Weights of the most recently used (source size, target size) pairs, per kernel
+    private static final int CACHE_ENTRIES = 32;
+    private static final Map<Kernel, Map<Long, Contributions>> CACHE = new EnumMap<>(Kernel.class);
+    static {
+        for (Kernel kernel : Kernel.values()) {
+            CACHE.put(kernel, Collections.synchronizedMap(new LinkedHashMap<Long, Contributions>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Contributions> eldest) {
+                    return size() > CACHE_ENTRIES;
+                }
+            }));
+        }
+    }
+
+    private static Contributions contributions(int srcSize, int dstSize, Kernel kernel) {
+        long key = ((long) srcSize << 32) | dstSize;
+        return CACHE.get(kernel).computeIfAbsent(key, k -> computeContributions(srcSize, dstSize, kernel));
+    }
+
+    private static Contributions computeContributions(int srcSize, int dstSize, Kernel kernel) {
+        double scale = (double) dstSize / srcSize;
+        // When shrinking, stretch the kernel so it also acts as the anti-aliasing filter
+        double filterScale = Math.max(1.0, 1.0 / scale);
+        double support = kernel.getRadius() * filterScale;
+        int taps = Math.min(srcSize, (int) Math.ceil(support * 2) + 1);
+
+        int[] first = new int[dstSize];
+        float[] weights = new float[dstSize * taps];
+        double[] w = new double[taps];
+
+        for (int i = 0; i < dstSize; i++) {
+            double center = (i + 0.5) / scale - 0.5;
+            int left = (int) Math.ceil(center - support);
+            left = Math.max(0, Math.min(left, srcSize - taps));
+
+            double total = 0;
+            for (int t = 0; t < taps; t++) {
+                w[t] = kernel.weight((left + t - center) / filterScale);
+                total += w[t];
+            }
+            if (total == 0) {
+                // Degenerate case: fall back to nearest sample
+                int nearest = Math.max(0, Math.min(srcSize - 1, (int) Math.round(center)));
+                Arrays.fill(w, 0);
+                w[nearest - left] = 1;
+                total = 1;
+            }
+
+            first[i] = left;
+            for (int t = 0; t < taps; t++) {
+                weights[i * taps + t] = (float) (w[t] / total);
+            }
+        }
+        return new Contributions(first, weights, taps);
+    }
+
+    /**
+     * Resizes an image to the given dimensions. Single-band 8-bit images stay
+     * TYPE_BYTE_GRAY, images with alpha become TYPE_INT_ARGB (resampled with premultiplied
+     * alpha, so transparent pixels do not bleed their color), and everything else is
+     * resampled per channel into TYPE_INT_RGB.
+     */
+    public static BufferedImage resize(BufferedImage image, int targetWidth, int targetHeight, Kernel kernel) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            throw new IllegalArgumentException("Target dimensions must be positive");
+        }
+        int srcWidth = image.getWidth();
+        int srcHeight = image.getHeight();
+        boolean gray = isGrayRaster(image);
+        boolean alpha = !gray && image.getColorModel().hasAlpha();
+        int channels = gray ? 1 : (alpha ? 4 : 3);
+
+        float[] source = readChannels(image, channels);
+        Contributions horizontal = contributions(srcWidth, targetWidth, kernel);
+        Contributions vertical = contributions(srcHeight, targetHeight, kernel);
+
+        // Pass 1: resample every source row horizontally
+        float[] rows = new float[srcHeight * targetWidth * channels];
+        ParallelBands.forEach(srcHeight, (start, end) -> {
+            for (int y = start; y < end; y++) {
+                int srcRow = y * srcWidth * channels;
+                int dstRow = y * targetWidth * channels;
+                for (int x = 0; x < targetWidth; x++) {
+                    int base = horizontal.first[x];
+                    int wOffset = x * horizontal.taps;
+                    for (int ch = 0; ch < channels; ch++) {
+                        float sum = 0;
+                        for (int t = 0; t < horizontal.taps; t++) {
+                            sum += horizontal.weights[wOffset + t] * source[srcRow + (base + t) * channels + ch];
+                        }
+                        rows[dstRow + x * channels + ch] = sum;
+                    }
+                }
+            }
+        });
+
+        // Pass 2: resample columns and write the output rows directly
+        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, gray ? BufferedImage.TYPE_BYTE_GRAY
+                : (alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB));
+        WritableRaster raster = resized.getRaster();
+        int rowLength = targetWidth * channels;
+        ParallelBands.forEach(targetHeight, (start, end) -> {
+            float[] line = new float[rowLength];
+            int[] out = new int[targetWidth];
+            for (int y = start; y < end; y++) {
+                Arrays.fill(line, 0);
+                int base = vertical.first[y];
+                for (int t = 0; t < vertical.taps; t++) {
+                    float weight = vertical.weights[y * vertical.taps + t];
+                    int srcRow = (base + t) * rowLength;
+                    for (int i = 0; i < rowLength; i++) {
+                        line[i] += weight * rows[srcRow + i];
+                    }
+                }
+                if (gray) {
+                    for (int x = 0; x < targetWidth; x++) {
+                        out[x] = clamp(line[x]);
+                    }
+                    raster.setSamples(0, y, targetWidth, 1, 0, out);
+                } else if (alpha) {
+                    for (int x = 0; x < targetWidth; x++) {
+                        int i = x * 4;
+                        int a = clamp(line[i + 3]);
+                        // Undo the premultiplication
+                        float scale = a == 0 ? 0 : 255f / a;
+                        out[x] = (a << 24) | (clamp(line[i] * scale) << 16)
+                                | (clamp(line[i + 1] * scale) << 8) | clamp(line[i + 2] * scale);
+                    }
+                    resized.setRGB(0, y, targetWidth, 1, out, 0, targetWidth);
+                } else {
+                    for (int x = 0; x < targetWidth; x++) {
+                        int i = x * 3;
+                        out[x] = (clamp(line[i]) << 16) | (clamp(line[i + 1]) << 8) | clamp(line[i + 2]);
+                    }
+                    resized.setRGB(0, y, targetWidth, 1, out, 0, targetWidth);
+                }
+            }
+        });
+
+        return resized;
+    }
+
+    private static boolean isGrayRaster(BufferedImage image) {
+        return image.getRaster().getNumBands() == 1
+                && image.getSampleModel().getSampleSize(0) == 8;
+    }
+
+    // Samples interleaved per pixel: gray, RGB, or RGB premultiplied by alpha followed by alpha
+    private static float[] readChannels(BufferedImage image, int channels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        float[] data = new float[width * height * channels];
+
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                int offset = y * width * channels;
+                if (channels == 1) {
+                    image.getRaster().getSamples(0, y, width, 1, 0, row);
+                    for (int x = 0; x < width; x++) {
+                        data[offset + x] = row[x];
+                    }
+                } else if (channels == 4) {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        int argb = row[x];
+                        float a = (argb >>> 24) / 255f;
+                        data[offset + x * 4] = ((argb >> 16) & 0xFF) * a;
+                        data[offset + x * 4 + 1] = ((argb >> 8) & 0xFF) * a;
+                        data[offset + x * 4 + 2] = (argb & 0xFF) * a;
+                        data[offset + x * 4 + 3] = argb >>> 24;
+                    }
+                } else {
+                    image.getRGB(0, y, width, 1, row, 0, width);
+                    for (int x = 0; x < width; x++) {
+                        int rgb = row[x];
+                        data[offset + x * 3] = (rgb >> 16) & 0xFF;
+                        data[offset + x * 3 + 1] = (rgb >> 8) & 0xFF;
+                        data[offset + x * 3 + 2] = rgb & 0xFF;
+                    }
+                }
+            }
+        });
+        return data;
+    }
+
+    private static int clamp(float value) {
+        int v = Math.round(value);
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+/**
+ * Local histogram equalization with a sliding window histogram (Perreault-Hebert style).
+ * Every column keeps its own histogram of the rows in the current window, updated with one
+ * add and one remove per row. The window histogram slides along the row by adding the entering
+ * column and removing the leaving one. Two bin levels (16 coarse x 16 fine) keep both the updates
+ * and the CDF queries short.
+ */
+public class SlidingHistogram {
+    private static final int BINS = 256;
+    private static final int COARSE = 16;
+    private static final int MIN_BAND_ROWS = 32;
+
+    /**
+     * Returns the locally equalized value of every pixel, using the clipped
+     * (2*halfSize+1)^2 window around it (same mapping as ImageProcessing2)
+     */
+    public static int[] localEqualization(int[] pixels, int width, int height, int halfSize) {
+        int[] result = new int[width * height];
+
+        ParallelBands.forEach(height, MIN_BAND_ROWS, (start, end) -> {
+            int[] columnFine = new int[width * BINS];
+            int[] columnCoarse = new int[width * COARSE];
+            int[] fine = new int[BINS];
+            int[] coarse = new int[COARSE];
+
+            // Column histograms for the window of the first row in this band
+            for (int y = Math.max(0, start - halfSize); y <= Math.min(height - 1, start + halfSize); y++) {
+                updateColumns(pixels, width, y, columnFine, columnCoarse, 1);
+            }
+
+            for (int y = start; y < end; y++) {
+                if (y > start) {
+                    int leaving = y - halfSize - 1;
+                    int entering = y + halfSize;
+                    if (leaving >= 0) {
+                        updateColumns(pixels, width, leaving, columnFine, columnCoarse, -1);
+                    }
+                    if (entering < height) {
+                        updateColumns(pixels, width, entering, columnFine, columnCoarse, 1);
+                    }
+                }
+                int rows = Math.min(height, y + halfSize + 1) - Math.max(0, y - halfSize);
+
+                Arrays.fill(fine, 0);
+                Arrays.fill(coarse, 0);
+                for (int x = 0; x <= Math.min(width - 1, halfSize); x++) {
+                    addColumn(x, columnFine, columnCoarse, fine, coarse, 1);
+                }
+
+                for (int x = 0; x < width; x++) {
+                    if (x > 0) {
+                        int leaving = x - halfSize - 1;
+                        int entering = x + halfSize;
+                        if (leaving >= 0) {
+                            addColumn(leaving, columnFine, columnCoarse, fine, coarse, -1);
+                        }
+                        if (entering < width) {
+                            addColumn(entering, columnFine, columnCoarse, fine, coarse, 1);
+                        }
+                    }
+                    int columns = Math.min(width, x + halfSize + 1) - Math.max(0, x - halfSize);
+                    int count = rows * columns;
+                    int centerGray = pixels[y * width + x];
+                    result[y * width + x] = equalize(fine, coarse, count, centerGray);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    private static void updateColumns(int[] pixels, int width, int y, int[] columnFine, int[] columnCoarse, int delta) {
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+            int gray = pixels[offset + x];
+            columnFine[x * BINS + gray] += delta;
+            columnCoarse[x * COARSE + (gray >> 4)] += delta;
+        }
+    }
+
+    // Adds (delta = 1) or removes (delta = -1) a column histogram, skipping empty coarse blocks
+    private static void addColumn(int x, int[] columnFine, int[] columnCoarse, int[] fine, int[] coarse, int delta) {
+        int coarseOffset = x * COARSE;
+        int fineOffset = x * BINS;
+        for (int c = 0; c < COARSE; c++) {
+            int n = columnCoarse[coarseOffset + c];
+            if (n == 0) {
+                continue;
+            }
+            coarse[c] += delta * n;
+            int base = c * COARSE;
+            for (int i = base; i < base + COARSE; i++) {
+                fine[i] += delta * columnFine[fineOffset + i];
+            }
+        }
+    }
+
+    private static int equalize(int[] fine, int[] coarse, int count, int centerGray) {
+        // CDF at the center value: whole coarse blocks below it, then fine bins within its block
+        int block = centerGray >> 4;
+        int cdf = 0;
+        for (int c = 0; c < block; c++) {
+            cdf += coarse[c];
+        }
+        for (int i = block * COARSE; i <= centerGray; i++) {
+            cdf += fine[i];
+        }
+
+        // Minimum non-zero CDF value is the count of the smallest value present
+        int cdfMin = 0;
+        for (int c = 0; c < COARSE; c++) {
+            if (coarse[c] > 0) {
+                for (int i = c * COARSE; ; i++) {
+                    if (fine[i] > 0) {
+                        cdfMin = fine[i];
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+
+        int enhancedGray = (int) (((cdf - cdfMin) * 255.0) / (count - cdfMin));
+        return Math.max(0, Math.min(255, enhancedGray));
+    }
+}
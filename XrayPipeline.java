@@ -0,0 +1,589 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Java port of run_pipeline in test.py: crop the chest X-ray to the lungs, smooth it, find the
+ * dark regions, merge them into one lung mask, post-process the mask and darken the masked
+ * region towards its center (region gradient). Every stage keeps the parameters of the Python
+ * version and is built on the project's own filters (Clahe, Convolution, MedianFilter,
+ * BilateralFilter, BinaryImage, RegionTree, DistanceTransform).
+ *
+ * Batches run in one JVM: images are processed concurrently on the shared fork/join pool
+ * (each stage is also parallel inside). The gray plane and the crop threshold plane of a
+ * worker come from a small pool of workspaces, at most one per pool worker plus the caller,
+ * so consecutive images of the same size reuse them; the filters allocate their own outputs.
+ *
+ * Usage: java XrayPipeline [-o outputDir] image...
+ * XrayPipelineCheck checks the outputs are deterministic, and compares them with those of
+ * test.py once reference outputs have been generated (see fixtures/xray/make_references.py).
+ */
+public class XrayPipeline {
+    private static final String[] OUTPUT_SUFFIXES = {"_cropped", "_mask", "_region_gradient"};
+    private static final int CROP_KERNEL_SIZE = 15;
+    private static final double CROP_TARGET_RATIO = 3.0 / 2.0;
+    private static final double MIN_DARK_REGION_AREA = 300;
+
+    // runBatch runs images on the common pool workers and the calling thread
+    private static final ArrayBlockingQueue<Workspace> WORKSPACES =
+            new ArrayBlockingQueue<>(ForkJoinPool.getCommonPoolParallelism() + 1);
+
+    /**
+     * Outputs of one image; mask and regionGradient are null when no lung region was found
+     */
+    public static class Result {
+        private final BufferedImage cropped;
+        private final BufferedImage mask;
+        private final BufferedImage regionGradient;
+        private final double averageIntensity;
+        private final String message;
+
+        private Result(BufferedImage cropped, BufferedImage mask, BufferedImage regionGradient,
+                       double averageIntensity, String message) {
+            this.cropped = cropped;
+            this.mask = mask;
+            this.regionGradient = regionGradient;
+            this.averageIntensity = averageIntensity;
+            this.message = message;
+        }
+
+        public BufferedImage getCropped() {
+            return cropped;
+        }
+
+        public BufferedImage getMask() {
+            return mask;
+        }
+
+        public BufferedImage getRegionGradient() {
+            return regionGradient;
+        }
+
+        public double getAverageIntensity() {
+            return averageIntensity;
+        }
+
+        /**
+         * The line run_pipeline prints for this image
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        public boolean hasMask() {
+            return mask != null;
+        }
+    }
+
+    // Reusable whole-image planes of one worker, kept while the next image has the same size
+    private static class Workspace {
+        private int[] gray;
+        private boolean[] binary;
+
+        int[] gray(int length) {
+            if (gray == null || gray.length != length) {
+                gray = new int[length];
+            }
+            return gray;
+        }
+
+        boolean[] binary(int length) {
+            if (binary == null || binary.length != length) {
+                binary = new boolean[length];
+            }
+            return binary;
+        }
+    }
+
+    public static void main(String[] args) {
+        File outputDir = new File("output");
+        List<File> images = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-o") && i + 1 < args.length) {
+                outputDir = new File(args[++i]);
+            } else {
+                images.add(new File(args[i]));
+            }
+        }
+        if (images.isEmpty()) {
+            System.out.println("Usage: java XrayPipeline [-o outputDir] image...");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        runBatch(images, outputDir);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Processed " + images.size() + " images in " + elapsed + " ms");
+    }
+
+    /**
+     * Runs the pipeline on every image concurrently and writes the PNG outputs; prints each
+     * image's message in input order and returns the base names of the images that produced output
+     */
+    public static List<String> runBatch(List<File> images, File outputDir) {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create output directory: " + outputDir);
+        }
+        String[] messages = new String[images.size()];
+        boolean[] written = new boolean[images.size()];
+        ParallelBands.forEach(images.size(), 1, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                File image = images.get(i);
+                try {
+                    Result result = run(image, outputDir);
+                    messages[i] = result.getMessage();
+                    written[i] = result.hasMask();
+                } catch (IOException | RuntimeException e) {
+                    messages[i] = "Failed to process " + image + ": " + e.getMessage();
+                }
+            }
+        });
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            System.out.println(messages[i]);
+            if (written[i]) {
+                names.add(baseName(images.get(i)));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Runs the pipeline on one image file and writes base_cropped.png, base_mask.png and
+     * base_region_gradient.png to the output directory (nothing when no lung region is found)
+     */
+    public static Result run(File imageFile, File outputDir) throws IOException {
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image == null) {
+            throw new IOException("Cannot load image: " + imageFile);
+        }
+        Result result = run(image, imageFile.getPath());
+        if (result.hasMask()) {
+            String base = baseName(imageFile);
+            ImageIO.write(result.getCropped(), "png", new File(outputDir, base + OUTPUT_SUFFIXES[0] + ".png"));
+            ImageIO.write(result.getMask(), "png", new File(outputDir, base + OUTPUT_SUFFIXES[1] + ".png"));
+            ImageIO.write(result.getRegionGradient(), "png", new File(outputDir, base + OUTPUT_SUFFIXES[2] + ".png"));
+        }
+        return result;
+    }
+
+    /**
+     * Runs the pipeline on an image (converted to 8-bit gray as cv2.IMREAD_GRAYSCALE does)
+     */
+    public static Result run(BufferedImage image, String name) {
+        Workspace workspace = WORKSPACES.poll();
+        if (workspace == null) {
+            workspace = new Workspace();
+        }
+        try {
+            return run(image, name, workspace);
+        } finally {
+            WORKSPACES.offer(workspace); // dropped when the pool is full
+        }
+    }
+
+    private static Result run(BufferedImage image, String name, Workspace workspace) {
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        int[] gray = readGrayscale(image, workspace.gray(imageWidth * imageHeight));
+
+        int[] bounds = crop(gray, imageWidth, imageHeight, CROP_KERNEL_SIZE, CROP_TARGET_RATIO, workspace);
+        int width = bounds[2] - bounds[0];
+        int height = bounds[3] - bounds[1];
+        int[] cropped = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(gray, (bounds[1] + y) * imageWidth + bounds[0], cropped, y * width, width);
+        }
+        BufferedImage croppedImage = toImage(cropped, width, height);
+
+        int[] smoothed = smooth(cropped, width, height);
+        RegionTree tree = darkRegions(smoothed, width, height);
+        List<Integer> darkRegions = new ArrayList<>();
+        for (int r = 0; r < tree.getRegionCount(); r++) {
+            if (tree.getParent(r) >= 0 && tree.getContourArea(r) > MIN_DARK_REGION_AREA) {
+                darkRegions.add(r);
+            }
+        }
+        if (darkRegions.isEmpty()) {
+            return new Result(croppedImage, null, null, 0, "No dark regions found in " + name + ".");
+        }
+
+        BinaryImage merged = merge(tree, darkRegions, width, height);
+        int[] mask = postprocessMask(merged);
+        double average = maskedAverage(cropped, mask);
+        int[] gradient = regionGradient(cropped, mask, width, height, 0.0, 1.0, 0.2);
+
+        String message = String.format(Locale.ROOT, "Average intensity in merged region for %s: %.2f", name, average);
+        return new Result(croppedImage, toImage(mask, width, height), toImage(gradient, width, height), average, message);
+    }
+
+    /**
+     * Lung bounding box {x1, y1, x2, y2} (exclusive end) padded towards the target aspect
+     * ratio; the whole image when no enclosed region is found
+     */
+    private static int[] crop(int[] gray, int width, int height, int kernelSize, double targetRatio,
+                              Workspace workspace) {
+        int threshold = ImageProcessing2.otsuThreshold(ParallelHistogram.of(gray, 256));
+        boolean[] binary = workspace.binary(width * height);
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = gray[i] > threshold;
+        }
+
+        // Regions with a parent contour, joined by dilation; the largest outer contour wins
+        BinaryImage lungs = RegionTree.of(binary, width, height).fillNested();
+        RegionTree connected = RegionTree.of(lungs.dilate(kernelSize, kernelSize));
+        int largest = -1;
+        for (int r = 0; r < connected.getRegionCount(); r++) {
+            if (connected.getParent(r) < 0
+                    && (largest < 0 || connected.getContourArea(r) > connected.getContourArea(largest))) {
+                largest = r;
+            }
+        }
+        if (largest < 0) {
+            return new int[]{0, 0, width, height};
+        }
+
+        int[] box = connected.getBoundingBox(largest);
+        int x = box[0];
+        int y = box[1];
+        int w = box[2] - box[0] + 1;
+        int h = box[3] - box[1] + 1;
+        int paddingX = (int) (w * 0.25);
+        int paddingY = (int) (h * 0.25);
+        double currentRatio = (double) (w + 2 * paddingX) / (h + 2 * paddingY);
+        if (currentRatio > targetRatio) {
+            double targetHeight = (w + 2 * paddingX) / targetRatio;
+            paddingY = Math.max(paddingY, (int) ((targetHeight - h) / 2));
+        } else {
+            double targetWidth = (h + 2 * paddingY) * targetRatio;
+            paddingX = Math.max(paddingX, (int) ((targetWidth - w) / 2));
+        }
+        return new int[]{Math.max(0, x - paddingX), Math.max(0, y - paddingY),
+                Math.min(width, x + w + paddingX), Math.min(height, y + h + paddingY)};
+    }
+
+    /**
+     * CLAHE, two Gaussian blurs, two median filters, a bilateral filter and a final Gaussian
+     * blur, with the float-to-byte truncations of the Python version
+     */
+    private static int[] smooth(int[] pixels, int width, int height) {
+        int[] clahe = Clahe.apply(pixels, width, height, 2.0, 8, 8);
+        float[] blurred = toFloat(clahe);
+        blurred = Convolution.apply(blurred, width, height, gaussianKernel(15, 4.0), Convolution.BorderMode.MIRROR);
+        blurred = Convolution.apply(blurred, width, height, gaussianKernel(11, 3.0), Convolution.BorderMode.MIRROR);
+        int[] smoothed = truncate(blurred);
+
+        smoothed = MedianFilter.apply(smoothed, width, height, 7);
+        smoothed = MedianFilter.apply(smoothed, width, height, 5);
+        // bilateralFilter(smoothed, 31, 200, 200): the grid samples OpenCV's own 31-px window
+        // (no sigma substitution); BilateralFilterCheck bounds its difference from the exact filter
+        smoothed = BilateralFilter.apply(smoothed, width, height, 31, 200, 200);
+        blurred = Convolution.apply(toFloat(smoothed), width, height, gaussianKernel(9, 2.5),
+                Convolution.BorderMode.MIRROR);
+        return truncate(blurred);
+    }
+
+    // Otsu binarization of the smoothed image; its regions with a parent are the dark regions
+    private static RegionTree darkRegions(int[] smoothed, int width, int height) {
+        int threshold = ImageProcessing2.otsuThreshold(ParallelHistogram.of(smoothed, 256));
+        boolean[] binary = new boolean[width * height];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = smoothed[i] > threshold;
+        }
+        return RegionTree.of(binary, width, height);
+    }
+
+    /**
+     * Convex hull of the largest dark region and the regions left of it, trimmed on every row
+     * to the right edge of the largest region
+     */
+    private static BinaryImage merge(RegionTree tree, List<Integer> darkRegions, int width, int height) {
+        int largest = darkRegions.get(0);
+        for (int r : darkRegions) {
+            if (tree.getContourArea(r) > tree.getContourArea(largest)) {
+                largest = r;
+            }
+        }
+        int[] largestBox = tree.getBoundingBox(largest);
+        int largestCenterX = largestBox[0] + (largestBox[2] - largestBox[0] + 1) / 2;
+
+        // Hull points: the leftmost and rightmost pixel of every row of each filled region
+        BinaryImage largestMask = tree.fill(largest);
+        int[] largestRight = new int[height];
+        List<long[]> points = new ArrayList<>();
+        addRowExtremes(largestMask, largestBox, points, largestRight);
+        for (int r : darkRegions) {
+            int[] box = tree.getBoundingBox(r);
+            if (r != largest && box[0] + (box[2] - box[0] + 1) / 2 < largestCenterX) {
+                addRowExtremes(tree.fill(r), box, points, null);
+            }
+        }
+
+        BinaryImage merged = fillConvexPolygon(convexHull(points), width, height);
+        for (int y = 0; y < height; y++) {
+            // Rows without the largest region (or ending at x = 0) are not trimmed, as in test.py
+            if (largestRight[y] > 0) {
+                for (int x = largestRight[y] + 1; x < width; x++) {
+                    merged.set(x, y, false);
+                }
+            }
+        }
+        return merged;
+    }
+
+    // Close then open with a 5x5 square, then a 5x5 Gaussian blur of the 0/255 mask
+    private static int[] postprocessMask(BinaryImage mask) {
+        int width = mask.getWidth();
+        int height = mask.getHeight();
+        BinaryImage cleaned = mask.close(5, 5).open(5, 5);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = cleaned.get(x, y) ? 255 : 0;
+            }
+        }
+        return Convolution.apply(pixels, width, height, gaussianKernel(5, 0), Convolution.BorderMode.MIRROR);
+    }
+
+    // Mean of the non-zero image pixels under the mask
+    private static double maskedAverage(int[] pixels, int[] mask) {
+        long sum = 0;
+        long count = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            if (mask[i] > 0 && pixels[i] > 0) {
+                sum += pixels[i];
+                count++;
+            }
+        }
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Scales the masked pixels by a factor that falls linearly from maxFactor at the mask edge
+     * to 10% of the range at linearRatio of the largest edge distance, then exponentially
+     * towards the center (float arithmetic, as the numpy version)
+     */
+    private static int[] regionGradient(int[] pixels, int[] mask, int width, int height,
+                                        double minFactor, double maxFactor, double linearRatio) {
+        boolean[] inside = new boolean[width * height];
+        boolean any = false;
+        for (int i = 0; i < inside.length; i++) {
+            inside[i] = mask[i] > 0;
+            any |= inside[i];
+        }
+        if (!any) {
+            return pixels.clone();
+        }
+        // OpenCV's 5x5 chamfer (DIST_L2, maskSize 5), not the exact distance: the exact one
+        // moves about 1.4% of the output pixels by up to 2 levels
+        float[] distance = DistanceTransform.chamfer5x5(inside, width, height);
+        float maxDistance = 0;
+        for (int i = 0; i < distance.length; i++) {
+            maxDistance = Math.max(maxDistance, distance[i]);
+        }
+        // No distance to normalize by: an empty-edged mask or one covering the whole image
+        if (maxDistance == 0 || Float.isInfinite(maxDistance)) {
+            return pixels.clone();
+        }
+
+        float min = (float) minFactor;
+        float max = (float) maxFactor;
+        float threshold = (float) linearRatio;
+        float knee = (float) (minFactor + 0.1 * (maxFactor - minFactor));
+        float linearDrop = (float) (maxFactor - (minFactor + 0.1 * (maxFactor - minFactor)));
+        float expoScale = (float) (1 - linearRatio);
+        float peak = maxDistance;
+        int[] result = new int[width * height];
+        ParallelBands.forEach(height, (start, end) -> {
+            for (int i = start * width; i < end * width; i++) {
+                if (!inside[i]) {
+                    result[i] = pixels[i];
+                    continue;
+                }
+                float normalized = distance[i] / peak;
+                float factor = normalized <= threshold
+                        ? max - linearDrop * (normalized / threshold)
+                        : knee * (float) Math.exp(-10 * (normalized - threshold) / expoScale);
+                factor = Math.max(min, Math.min(max, factor));
+                float value = pixels[i] * factor;
+                result[i] = (int) Math.max(0, Math.min(255, value));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 8-bit gray samples of an image; color images use OpenCV's fixed-point BT.601 weights
+     */
+    private static int[] readGrayscale(BufferedImage image, int[] samples) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (image.getRaster().getNumBands() == 1 && image.getSampleModel().getSampleSize(0) == 8) {
+            return image.getRaster().getSamples(0, 0, width, height, 0, samples);
+        }
+        ParallelBands.forEach(height, (start, end) -> {
+            int[] row = new int[width];
+            for (int y = start; y < end; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    int r = (rgb >> 16) & 0xFF;
+                    int g = (rgb >> 8) & 0xFF;
+                    int b = rgb & 0xFF;
+                    samples[y * width + x] = (r * 4899 + g * 9617 + b * 1868 + (1 << 13)) >> 14;
+                }
+            }
+        });
+        return samples;
+    }
+
+    /**
+     * cv2.getGaussianKernel as a separable kernel; sigma <= 0 derives sigma from the size
+     * (and a 5-tap kernel then uses OpenCV's fixed binomial weights)
+     */
+    private static Convolution.Kernel gaussianKernel(int size, double sigma) {
+        double[] weights;
+        if (sigma <= 0 && size == 5) {
+            weights = new double[]{1 / 16.0, 4 / 16.0, 6 / 16.0, 4 / 16.0, 1 / 16.0};
+        } else {
+            double s = sigma > 0 ? sigma : GaussianBlur.sigmaForKernelSize(size);
+            weights = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                double x = i - (size - 1) / 2.0;
+                weights[i] = Math.exp(-(x * x) / (2 * s * s));
+                sum += weights[i];
+            }
+            for (int i = 0; i < size; i++) {
+                weights[i] /= sum;
+            }
+        }
+        return Convolution.Kernel.separable(weights, weights);
+    }
+
+    // Adds {x, y} of the first and last set pixel of every row inside the box; optionally
+    // records the last x of every row
+    private static void addRowExtremes(BinaryImage mask, int[] box, List<long[]> points, int[] rowRight) {
+        for (int y = box[1]; y <= box[3]; y++) {
+            int left = -1;
+            int right = -1;
+            for (int x = box[0]; x <= box[2]; x++) {
+                if (mask.get(x, y)) {
+                    if (left < 0) {
+                        left = x;
+                    }
+                    right = x;
+                }
+            }
+            if (left >= 0) {
+                points.add(new long[]{left, y});
+                points.add(new long[]{right, y});
+                if (rowRight != null) {
+                    rowRight[y] = right;
+                }
+            }
+        }
+    }
+
+    // Andrew's monotone chain; counter-clockwise hull without collinear points
+    private static long[][] convexHull(List<long[]> points) {
+        long[][] sorted = points.toArray(new long[0][]);
+        Arrays.sort(sorted, (p, q) -> p[0] != q[0] ? Long.compare(p[0], q[0]) : Long.compare(p[1], q[1]));
+        if (sorted.length < 3) {
+            return sorted;
+        }
+        long[][] hull = new long[2 * sorted.length][];
+        int k = 0;
+        for (long[] p : sorted) {
+            while (k >= 2 && cross(hull[k - 2], hull[k - 1], p) <= 0) {
+                k--;
+            }
+            hull[k++] = p;
+        }
+        for (int i = sorted.length - 2, lower = k + 1; i >= 0; i--) {
+            while (k >= lower && cross(hull[k - 2], hull[k - 1], sorted[i]) <= 0) {
+                k--;
+            }
+            hull[k++] = sorted[i];
+        }
+        return Arrays.copyOf(hull, k - 1);
+    }
+
+    private static long cross(long[] o, long[] a, long[] b) {
+        return (a[0] - o[0]) * (b[1] - o[1]) - (a[1] - o[1]) * (b[0] - o[0]);
+    }
+
+    // Fills a convex polygon, edges included: every row spans from the leftmost to the
+    // rightmost edge crossing, rounded to the nearest pixel
+    private static BinaryImage fillConvexPolygon(long[][] polygon, int width, int height) {
+        BinaryImage mask = new BinaryImage(width, height);
+        int n = polygon.length;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (long[] p : polygon) {
+            minY = Math.min(minY, (int) p[1]);
+            maxY = Math.max(maxY, (int) p[1]);
+        }
+        for (int y = Math.max(0, minY); y <= Math.min(height - 1, maxY); y++) {
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                long[] p = polygon[i];
+                long[] q = polygon[(i + 1) % n];
+                if (y < Math.min(p[1], q[1]) || y > Math.max(p[1], q[1])) {
+                    continue;
+                }
+                if (p[1] == q[1]) {
+                    left = Math.min(left, Math.min(p[0], q[0]));
+                    right = Math.max(right, Math.max(p[0], q[0]));
+                } else {
+                    double x = p[0] + (double) (y - p[1]) * (q[0] - p[0]) / (q[1] - p[1]);
+                    left = Math.min(left, x);
+                    right = Math.max(right, x);
+                }
+            }
+            for (int x = Math.max(0, (int) Math.round(left)); x <= Math.min(width - 1, Math.round(right)); x++) {
+                mask.set(x, y, true);
+            }
+        }
+        return mask;
+    }
+
+    private static float[] toFloat(int[] pixels) {
+        float[] plane = new float[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            plane[i] = pixels[i];
+        }
+        return plane;
+    }
+
+    // float -> uint8 as numpy's astype: truncation (inputs stay within [0, 255])
+    private static int[] truncate(float[] plane) {
+        int[] pixels = new int[plane.length];
+        for (int i = 0; i < plane.length; i++) {
+            pixels[i] = Math.max(0, Math.min(255, (int) plane[i]));
+        }
+        return pixels;
+    }
+
+    private static BufferedImage toImage(int[] pixels, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        image.getRaster().setSamples(0, 0, width, height, 0, pixels);
+        return image;
+    }
+
+    // os.path.basename(path).split('.')[0]
+    private static String baseName(File file) {
+        String name = file.getName();
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+}
@@ -0,0 +1,119 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Runs XrayPipeline on the fixture images (fixtures/xray/*.png) twice each, with the common pool
+ * forced to 4 workers, and requires a lung mask and identical outputs from both runs.
+ *
+ * Parity with test.py is only checked when fixtures/xray/reference holds the outputs of test.py,
+ * written by fixtures/xray/make_references.py (needs OpenCV); no references are committed, so
+ * by default the comparison is skipped and says so. With references, the crop must be identical
+ * and the mask and the region gradient are bounded by mean, max and fraction of differing pixels.
+ * Run with: java XrayPipelineCheck [fixtureDir], or java Checks for every check.
+ */
+public class XrayPipelineCheck {
+    private static final String[] SUFFIXES = {"_cropped", "_mask", "_region_gradient"};
+    // {mean, max, fraction of differing pixels} allowed per output. The mask is blurred 5x5, so a
+    // contour one pixel off changes its edge by up to ~100 levels; a pixel flipping inside/outside
+    // differs by 255
+    private static final double[][] BOUNDS = {
+        {0, 0, 0},
+        {1.0, 128, 0.01},
+        {2.0, 255, 0.05},
+    };
+
+    private static final String FIXTURES = "fixtures/xray";
+
+    public static void main(String[] args) {
+        File fixtures = new File(args.length > 0 ? args[0] : FIXTURES);
+        Checks.main("X-ray pipeline", checks -> run(checks, fixtures));
+    }
+
+    static void run(Checks checks) throws IOException {
+        run(checks, new File(FIXTURES));
+    }
+
+    private static void run(Checks checks, File fixtures) throws IOException {
+        File references = new File(fixtures, "reference");
+        File[] images = fixtures.listFiles((dir, name) -> name.endsWith(".png"));
+        if (images == null || images.length == 0) {
+            checks.expect(false, "no fixture images in " + fixtures);
+            return;
+        }
+        Arrays.sort(images);
+        boolean compare = references.isDirectory();
+        if (!compare) {
+            System.out.println("SKIPPED parity with test.py: no " + references
+                    + " (generate it with fixtures/xray/make_references.py)");
+        }
+
+        for (File file : images) {
+            String base = file.getName().substring(0, file.getName().length() - ".png".length());
+            BufferedImage image = ImageIO.read(file);
+            XrayPipeline.Result result = XrayPipeline.run(image, file.getPath());
+            XrayPipeline.Result again = XrayPipeline.run(image, file.getPath());
+            System.out.println(result.getMessage());
+            if (!result.hasMask()) {
+                checks.expect(false, base + ": no lung region found");
+                continue;
+            }
+            BufferedImage[] outputs = {result.getCropped(), result.getMask(), result.getRegionGradient()};
+            BufferedImage[] repeated = {again.getCropped(), again.getMask(), again.getRegionGradient()};
+            for (int k = 0; k < SUFFIXES.length; k++) {
+                String name = base + SUFFIXES[k] + ".png";
+                checks.expect(Arrays.equals(samples(outputs[k]), samples(repeated[k])),
+                        name + ": second run differs");
+                if (!compare) {
+                    continue;
+                }
+
+                File referenceFile = new File(references, name);
+                BufferedImage reference = referenceFile.isFile() ? ImageIO.read(referenceFile) : null;
+                if (reference == null) {
+                    checks.expect(false, name + ": no reference (run fixtures/xray/make_references.py)");
+                    continue;
+                }
+                if (reference.getWidth() != outputs[k].getWidth() || reference.getHeight() != outputs[k].getHeight()
+                        || reference.getRaster().getNumBands() != 1) {
+                    checks.expect(false, name + ": output " + outputs[k].getWidth() + "x" + outputs[k].getHeight()
+                            + ", reference " + reference.getWidth() + "x" + reference.getHeight()
+                            + " with " + reference.getRaster().getNumBands() + " bands");
+                    continue;
+                }
+                double[] difference = difference(samples(outputs[k]), samples(reference));
+                boolean ok = difference[0] <= BOUNDS[k][0] && difference[1] <= BOUNDS[k][1]
+                        && difference[2] <= BOUNDS[k][2];
+                System.out.printf("%s: mean |diff| %.3f, max |diff| %d, %.3f%% pixels differ%s%n", name,
+                        difference[0], (int) difference[1], difference[2] * 100, ok ? "" : " (FAILED)");
+                checks.expect(ok, name + ": outside mean " + BOUNDS[k][0] + ", max " + (int) BOUNDS[k][1]
+                        + ", " + BOUNDS[k][2] * 100 + "% differing");
+            }
+        }
+        if (!compare) {
+            System.out.println("Determinism only: parity with test.py was not checked");
+        }
+    }
+
+    private static int[] samples(BufferedImage image) {
+        return image.getRaster().getSamples(0, 0, image.getWidth(), image.getHeight(), 0, (int[]) null);
+    }
+
+    // {mean absolute difference, max absolute difference, fraction of differing pixels}
+    private static double[] difference(int[] a, int[] b) {
+        long sum = 0;
+        int max = 0;
+        int differing = 0;
+        for (int i = 0; i < a.length; i++) {
+            int d = Math.abs(a[i] - b[i]);
+            sum += d;
+            max = Math.max(max, d);
+            if (d != 0) {
+                differing++;
+            }
+        }
+        return new double[]{(double) sum / a.length, max, (double) differing / a.length};
+    }
+}
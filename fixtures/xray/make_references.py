@@ -0,0 +1,20 @@
+"""Writes the outputs of test.py's run_pipeline for every fixture image to fixtures/xray/reference,
+the files XrayPipelineCheck compares against. Needs opencv-python, numpy and matplotlib.
+
+Run from anywhere: python fixtures/xray/make_references.py
+"""
+import glob
+import importlib.util
+import os
+
+import matplotlib
+
+matplotlib.use("Agg")  # run_pipeline ends with plt.show()
+
+here = os.path.dirname(os.path.abspath(__file__))
+spec = importlib.util.spec_from_file_location("pipeline", os.path.join(here, "..", "..", "test.py"))
+pipeline = importlib.util.module_from_spec(spec)
+spec.loader.exec_module(pipeline)
+
+for path in sorted(glob.glob(os.path.join(here, "*.png"))):
+    pipeline.run_pipeline(path, os.path.join(here, "reference"))